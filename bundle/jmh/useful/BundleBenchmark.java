@@ -0,0 +1,87 @@
+package useful;
+
+import arc.func.Cons2;
+import arc.struct.StringMap;
+import mindustry.gen.Groups;
+import mindustry.gen.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a group message formatted for each player compared to the one formatted once for each locale by {@link Bundle#each}.
+ * Players are added to the group without connections and the messages are consumed instead of being sent, so only the formatting is measured.
+ * Run with {@code gradlew :bundle:jmh}, the formatting of the grouped broadcast grows with the number of locales, only the locale lookup grows with the number of players.
+ *
+ * @author xzxADIxzx
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BundleBenchmark {
+
+    private static final String[] codes = {"en", "ru", "de", "fr", "uk"};
+
+    @Param({"60", "240"})
+    public int players;
+
+    @Param({"1", "2", "3", "4", "5"})
+    public int locales;
+
+    private final Object[] values = {"Steve", "Alex", "sword", 1234.5};
+
+    @Setup
+    public void setup() {
+        for (var code : codes) {
+            var locale = new Locale(code);
+            var bundle = new StringMap();
+
+            bundle.put("kill", "[accent]{0}[] killed {1} with {2} ({3} points)");
+            Bundle.supported.addUnique(locale);
+            Bundle.bundles.put(locale, bundle);
+        }
+
+        Bundle.defaultLocale = Bundle.supported.first();
+        Bundle.defaultBundle = Bundle.bundles.get(Bundle.defaultLocale);
+        Bundle.flatten();
+
+        Groups.init();
+        for (int i = 0; i < players; i++) {
+            var player = Player.create();
+            player.locale = codes[i % locales];
+            Groups.player.add(player);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        Groups.player.clear();
+    }
+
+    @Benchmark
+    public void perPlayer(Blackhole blackhole) {
+        Groups.player.each(player -> blackhole.consume(Bundle.format("kill", player, values)));
+    }
+
+    @Benchmark
+    public void grouped(Blackhole blackhole) {
+        Cons2<Player, String> cons = (player, text) -> blackhole.consume(text);
+        Bundle.each("kill", values, cons);
+    }
+}
@@ -1,9 +1,12 @@
 package useful;
 
+import arc.Events;
 import arc.files.Fi;
 import arc.func.Boolf;
+import arc.func.Cons2;
 import arc.struct.*;
 import arc.util.*;
+import mindustry.game.EventType.PlayerLeave;
 import mindustry.gen.*;
 import mindustry.mod.Mod;
 import mindustry.net.NetConnection;
@@ -12,11 +15,20 @@ import net.time4j.format.TextWidth;
 import net.time4j.scale.TimeScale;
 import net.time4j.tz.Timezone;
 
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.text.*;
 import java.time.Duration;
 import java.time.temporal.TemporalAmount;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import static mindustry.Vars.*;
 
@@ -30,9 +42,37 @@ public class Bundle {
     public static final Seq<Locale> supported = new Seq<>();
     public static final ObjectMap<Locale, StringMap> bundles = new ObjectMap<>();
 
+    public static final Locale router = new Locale("router"); // :3
+
     public static Locale defaultLocale;
     public static StringMap defaultBundle;
 
+    /** Locales resolved from raw codes, the number of them is limited as the codes are sent by clients. */
+    private static final ObjectMap<String, Locale> resolved = new ObjectMap<>();
+    private static final int maxResolved = 256;
+
+    /** Locales bound to players instead of the ones of their clients, see {@link #bind(Player, Locale)}. */
+    private static final ObjectMap<Player, Locale> bindings = new ObjectMap<>();
+
+    /** Identifiers of the keys and the keys themselves, see {@link #key(String)}. */
+    private static final ObjectIntMap<String> keys = new ObjectIntMap<>();
+    private static final Seq<String> names = new Seq<>();
+
+    /** Patterns of each locale indexed by key identifiers, with the patterns of the default bundle in place of the missing ones. */
+    private static final ObjectMap<Locale, String[]> tables = new ObjectMap<>();
+    private static String[] defaultTable = {};
+    /** Whether each locale has a pattern of its own indexed by key identifiers, used by has. */
+    private static final ObjectMap<Locale, boolean[]> presence = new ObjectMap<>();
+
+    /** Compiled patterns of each locale indexed by key identifiers, they are compiled on the first format of the key. */
+    private static final ObjectMap<Locale, MessageTemplate[]> templates = new ObjectMap<>();
+    /** Reused by each format in the thread, it is null while a format uses it. */
+    private static final ThreadLocal<StringBuilder> builders = ThreadLocal.withInitial(StringBuilder::new);
+
+    static {
+        Events.on(PlayerLeave.class, event -> unbind(event.player));
+    }
+
     public static void load(Class<? extends Mod> main) {
         load(main, "en");
     }
@@ -45,38 +85,198 @@ public class Bundle {
         load(mods.getMod(main).root.child("bundles"), defaultLocaleCode);
     }
 
+    /** Loads the bundle_*.properties files of the directory, the files are read and parsed in parallel. */
     public static void load(Fi directory, String defaultLocaleCode) {
+        long start = Time.millis();
+
+        var locales = new Seq<Locale>();
+        var files = new Seq<Fi>();
+
         directory.walk(fi -> {
             if (!fi.extEquals("properties")) return;
 
             var codes = fi.nameWithoutExtension().split("_");
-            supported.addUnique(codes.length == 2 ? new Locale(codes[1]) : new Locale(codes[1], codes[2]));
+            var locale = codes.length == 2 ? new Locale(codes[1]) : new Locale(codes[1], codes[2]);
+
+            supported.addUnique(locale);
+            locales.add(locale);
+            files.add(fi);
         });
 
-        supported.each(locale -> {
-            if (locale.toString().equals("router")) return;
+        var parsed = new Properties[files.size];
+        var times = new long[files.size];
 
-            var bundle = ResourceBundle.getBundle("bundles.bundle", locale);
-            bundle.keySet().forEach(key -> bundles.get(locale, StringMap::new).put(key, bundle.getString(key)));
+        IntStream.range(0, files.size).parallel().forEach(i -> {
+            long time = System.nanoTime();
+            parsed[i] = read(files.get(i));
+            times[i] = System.nanoTime() - time;
         });
 
-        supported.addUnique(new Locale("router")); // :3
+        for (int i = 0; i < locales.size; i++) {
+            var locale = locales.get(i);
+            var bundle = bundles.get(locale, StringMap::new);
+
+            // the same as in resource bundles, keys that are missing for a country are taken from its language
+            int parent = locales.indexOf(new Locale(locale.getLanguage()));
+            if (parent != -1 && parent != i) parsed[parent].forEach((key, value) -> bundle.put((String) key, (String) value));
+
+            parsed[i].forEach((key, value) -> bundle.put((String) key, (String) value));
+            Log.debug("Loaded locale @ in @ms.", locale, times[i] / 1000000f);
+        }
+
+        supported.addUnique(router);
+
+        synchronized (resolved) {
+            resolved.clear();
+        }
 
         defaultLocale = supported.find(locale -> locale.toString().equals(defaultLocaleCode));
         defaultBundle = bundles.get(defaultLocale);
 
-        Log.info("Loaded @ locales, default is @.", supported.size, defaultLocale);
+        flatten();
+
+        Log.info("Loaded @ locales in @ms, default is @.", supported.size, Time.timeSinceMillis(start), defaultLocale);
+    }
+
+    /** Reads the properties as UTF-8 or as ISO-8859-1 if they are not valid UTF-8, the same way resource bundles do. */
+    private static Properties read(Fi file) {
+        var bytes = ByteBuffer.wrap(file.readBytes());
+        CharBuffer chars;
+
+        try {
+            chars = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(bytes);
+        } catch (CharacterCodingException e) {
+            chars = StandardCharsets.ISO_8859_1.decode(bytes.rewind());
+        }
+
+        try {
+            var properties = new Properties();
+            properties.load(new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining()));
+            return properties;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Flattens the bundles into tables indexed by key identifiers, must be called after changing the bundles manually. */
+    public static void flatten() {
+        synchronized (keys) {
+            bundles.each((locale, bundle) -> bundle.each((key, value) -> key(key)));
+
+            defaultTable = new String[0];
+            defaultTable = table(defaultBundle);
+
+            tables.clear();
+            bundles.each((locale, bundle) -> tables.put(locale, table(bundle)));
+
+            presence.clear();
+            bundles.each((locale, bundle) -> presence.put(locale, mask(bundle)));
+        }
+
+        synchronized (templates) {
+            templates.clear();
+        }
     }
 
     // region locale
 
     public static Locale locale(Player player) {
+        synchronized (bindings) {
+            var locale = bindings.get(player);
+            if (locale != null) return locale;
+        }
+
         return locale(player.locale);
     }
 
     public static Locale locale(String code) {
-        var locale = supported.find(loc -> code.startsWith(loc.toString()));
-        return locale == null ? defaultLocale : locale;
+        synchronized (resolved) {
+            var locale = resolved.get(code);
+            if (locale != null) return locale;
+
+            locale = supported.find(loc -> code.startsWith(loc.toString()));
+            if (locale == null) locale = defaultLocale;
+
+            if (locale != null && resolved.size < maxResolved) resolved.put(code, locale);
+            return locale;
+        }
+    }
+
+    /** Uses the given locale for the player instead of the one of their client until they leave. */
+    public static void bind(Player player, Locale locale) {
+        synchronized (bindings) {
+            bindings.put(player, locale);
+        }
+    }
+
+    public static void unbind(Player player) {
+        synchronized (bindings) {
+            bindings.remove(player);
+        }
+    }
+
+    public static boolean router(Locale locale) {
+        return locale == router || locale.equals(router);
+    }
+
+    // endregion
+    // region key
+
+    /** @return identifier of the key that can be used instead of it to get patterns by index, keys that are not loaded yet get one as well. */
+    public static int key(String key) {
+        synchronized (keys) {
+            int id = keys.get(key, -1);
+            if (id != -1) return id;
+
+            keys.put(key, id = names.size);
+            names.add(key);
+            return id;
+        }
+    }
+
+    /** @return the key of the identifier. */
+    public static String name(int key) {
+        synchronized (keys) {
+            return names.get(key);
+        }
+    }
+
+    /** @return identifier of the key or -1 if there is no such key, unlike {@link #key(String)} it never creates one. */
+    private static int find(String key) {
+        synchronized (keys) {
+            return keys.get(key, -1);
+        }
+    }
+
+    /** @return pattern of the key in the locale or in the default bundle or null if there is no such key. */
+    private static String pattern(int key, Locale locale) {
+        var table = tables.get(locale, defaultTable);
+        return key >= 0 && key < table.length ? table[key] : null;
+    }
+
+    /** @return pattern of the key in the locale or in the default bundle or the default value if there is no such key. */
+    private static String pattern(int key, String defaultValue, Locale locale) {
+        var pattern = pattern(key, locale);
+        return pattern == null ? defaultValue : pattern;
+    }
+
+    /** @return patterns of the bundle indexed by key identifiers, merged with the default ones. */
+    private static String[] table(StringMap bundle) {
+        var table = Arrays.copyOf(defaultTable, keys.size);
+        if (bundle != null) bundle.each((key, value) -> table[keys.get(key, -1)] = value);
+
+        return table;
+    }
+
+    /** @return whether the bundle has a pattern of each key indexed by key identifiers. */
+    private static boolean[] mask(StringMap bundle) {
+        var mask = new boolean[keys.size];
+        if (bundle != null) bundle.each((key, value) -> mask[keys.get(key, -1)] = true);
+
+        return mask;
     }
 
     // endregion
@@ -94,9 +294,16 @@ public class Bundle {
         return has(key, locale(locale));
     }
 
+    /** @return whether the bundle of the locale itself has a pattern of the key, the default bundle is not taken into account. */
     public static boolean has(String key, Locale locale) {
-        if (locale.toString().equals("router")) return true;
-        return bundles.containsKey(locale) && bundles.get(locale).containsKey(key);
+        return has(find(key), locale);
+    }
+
+    public static boolean has(int key, Locale locale) {
+        if (router(locale)) return true;
+
+        var mask = presence.get(locale);
+        return mask != null && key >= 0 && key < mask.length && mask[key];
     }
 
     // endregion
@@ -127,10 +334,20 @@ public class Bundle {
     }
 
     public static String get(String key, String defaultValue, Locale locale) {
-        if (locale.toString().equals("router")) return "router";
+        if (router(locale)) return "router";
+        return pattern(find(key), defaultValue, locale);
+    }
 
-        var bundle = bundles.get(locale, defaultBundle);
-        return bundle.get(key, defaultBundle.get(key, defaultValue));
+    public static String get(int key, Player player) {
+        return get(key, locale(player));
+    }
+
+    /** @return pattern of the key found by index or the key itself if there is no such pattern. */
+    public static String get(int key, Locale locale) {
+        if (router(locale)) return "router";
+
+        var pattern = pattern(key, locale);
+        return pattern == null ? name(key) : pattern;
     }
 
     // endregion
@@ -161,12 +378,88 @@ public class Bundle {
     }
 
     public static String format(String key, String defaultValue, Locale locale, Object... values) {
-        if (locale.toString().equals("router")) return "router";
+        return format(find(key), defaultValue, locale, values);
+    }
+
+    public static String format(int key, Player player, Object... values) {
+        return format(key, locale(player), values);
+    }
+
+    public static String format(int key, Locale locale, Object... values) {
+        if (router(locale)) return "router";
+
+        var pattern = get(key, locale);
+        if (values.length == 0) return pattern;
+
+        return formatPattern(key, pattern, locale, values);
+    }
+
+    /** Formats the pattern of the key found by identifier, so that the key is looked up only once. */
+    private static String format(int key, String defaultValue, Locale locale, Object[] values) {
+        if (router(locale)) return "router";
 
-        var pattern = get(key, defaultValue, locale);
+        var pattern = pattern(key, defaultValue, locale);
         if (values.length == 0) return pattern;
 
-        return new TextFormatter(locale, true).format(pattern, values);
+        return formatPattern(key, pattern, locale, values);
+    }
+
+    private static String formatPattern(int key, String pattern, Locale locale, Object... values) {
+        if (key < 0) return formatUncached(pattern, locale, values);
+
+        var template = template(key, pattern, locale);
+        var builder = builders.get();
+
+        // toString of an argument may format another message, which gets a new builder as this one is in use
+        if (builder == null) return template.format(values);
+
+        builders.set(null);
+        try {
+            builder.setLength(0);
+            template.format(builder, values);
+            return builder.toString();
+        } finally {
+            builders.set(builder);
+        }
+    }
+
+    /** Formats the pattern of an unknown key the same way as TextFormatter, as it is not cached it is not worth compiling. */
+    private static String formatUncached(String pattern, Locale locale, Object... values) {
+        return new MessageFormat(MessageTemplate.escape(pattern), locale).format(values);
+    }
+
+    /** Appends the formatted pattern of the key to the builder without creating intermediate strings. */
+    public static void format(StringBuilder builder, String key, String defaultValue, Locale locale, Object... values) {
+        if (router(locale)) {
+            builder.append("router");
+            return;
+        }
+
+        int id = find(key);
+        var pattern = pattern(id, defaultValue, locale);
+
+        if (values.length == 0) builder.append(pattern);
+        else if (id < 0) builder.append(formatUncached(pattern, locale, values));
+        else template(id, pattern, locale).format(builder, values);
+    }
+
+    /**
+     * @return the compiled pattern, it is compiled again if the pattern of the key has changed, for example due to another default value.
+     * Patterns of unknown keys, which have the identifier of -1, are not cached.
+     */
+    public static MessageTemplate template(int key, String pattern, Locale locale) {
+        if (key < 0) return new MessageTemplate(pattern, locale);
+
+        synchronized (templates) {
+            var compiled = templates.get(locale);
+            if (compiled == null || compiled.length <= key) templates.put(locale, compiled = Arrays.copyOf(compiled == null ? new MessageTemplate[0] : compiled, Math.max(key + 1, keys.size)));
+
+            var template = compiled[key];
+            if (template == null || !template.pattern.equals(pattern))
+                compiled[key] = template = new MessageTemplate(pattern, locale);
+
+            return template;
+        }
     }
 
     // endregion
@@ -473,67 +766,85 @@ public class Bundle {
     // region group
 
     public static void send(String key, Object... values) {
-        Groups.player.each(player -> send(player, key, values));
+        each(key, values, (player, text) -> player.sendMessage(text));
     }
 
     public static void send(Boolf<Player> filter, String key, Object... values) {
-        Groups.player.each(filter, player -> send(player, key, values));
+        each(filter, key, values, (player, text) -> player.sendMessage(text));
     }
 
     public static void sendFrom(Player from, String text, String key, Object... values) {
-        Groups.player.each(player -> sendFrom(player, from, text, key, values));
+        each(key, Structs.add(values, text), (player, message) -> player.sendMessage(message, from, text));
     }
 
     public static void sendFrom(Boolf<Player> filter, Player from, String text, String key, Object... values) {
-        Groups.player.each(filter, player -> sendFrom(player, from, text, key, values));
+        each(filter, key, Structs.add(values, text), (player, message) -> player.sendMessage(message, from, text));
     }
 
     public static void infoMessage(String key, Object... values) {
-        Groups.player.each(player -> infoMessage(player, key, values));
+        each(key, values, (player, text) -> Call.infoMessage(player.con, text));
     }
 
     public static void infoMessage(Boolf<Player> filter, String key, Object... values) {
-        Groups.player.each(filter, player -> infoMessage(player, key, values));
+        each(filter, key, values, (player, text) -> Call.infoMessage(player.con, text));
     }
 
     public static void setHud(String key, Object... values) {
-        Groups.player.each(player -> setHud(player, key, values));
+        each(key, values, (player, text) -> Call.setHudText(player.con, text));
     }
 
     public static void setHud(Boolf<Player> filter, String key, Object... values) {
-        Groups.player.each(filter, player -> setHud(player, key, values));
+        each(filter, key, values, (player, text) -> Call.setHudText(player.con, text));
     }
 
     public static void announce(String key, Object... values) {
-        Groups.player.each(player -> announce(player, key, values));
+        each(key, values, (player, text) -> Call.announce(player.con, text));
     }
 
     public static void announce(Boolf<Player> filter, String key, Object... values) {
-        Groups.player.each(filter, player -> announce(player, key, values));
+        each(filter, key, values, (player, text) -> Call.announce(player.con, text));
     }
 
     public static void toast(int icon, String key, Object... values) {
-        Groups.player.each(player -> toast(player, icon, key, values));
+        each(key, values, (player, text) -> Call.warningToast(player.con, icon, text));
     }
 
     public static void toast(Boolf<Player> filter, int icon, String key, Object... values) {
-        Groups.player.each(filter, player -> toast(player, icon, key, values));
+        each(filter, key, values, (player, text) -> Call.warningToast(player.con, icon, text));
     }
 
     public static void label(float duration, float x, float y, String key, Object... values) {
-        Groups.player.each(player -> label(player, duration, x, y, key, values));
+        each(key, values, (player, text) -> Call.label(player.con, text, duration, x, y));
     }
 
     public static void label(Boolf<Player> filter, float duration, float x, float y, String key, Object... values) {
-        Groups.player.each(filter, player -> label(player, duration, x, y, key, values));
+        each(filter, key, values, (player, text) -> Call.label(player.con, text, duration, x, y));
     }
 
     public static void popup(float duration, int align, int top, int left, int bottom, int right, String key, Object... values) {
-        Groups.player.each(player -> popup(player, duration, align, top, left, bottom, right, key, values));
+        each(key, values, (player, text) -> Call.infoPopup(player.con, text, duration, align, top, left, bottom, right));
     }
 
     public static void popup(Boolf<Player> filter, float duration, int align, int top, int left, int bottom, int right, String key, Object... values) {
-        Groups.player.each(filter, player -> popup(player, duration, align, top, left, bottom, right, key, values));
+        each(filter, key, values, (player, text) -> Call.infoPopup(player.con, text, duration, align, top, left, bottom, right));
+    }
+
+    public static void each(String key, Object[] values, Cons2<Player, String> cons) {
+        each(player -> true, key, values, cons);
+    }
+
+    /** Formats the message once for each locale of the players that pass the filter, the players receive it in the same order as before. */
+    public static void each(Boolf<Player> filter, String key, Object[] values, Cons2<Player, String> cons) {
+        var texts = new ObjectMap<Locale, String>();
+        int id = find(key);
+
+        Groups.player.each(filter, player -> {
+            var locale = locale(player);
+            var text = texts.get(locale);
+
+            if (text == null) texts.put(locale, text = format(id, key, locale, values));
+            cons.get(player, text);
+        });
     }
 
     // endregion
@@ -19,7 +19,7 @@ public class KickBuilder {
     }
 
     public KickBuilder add(String key, Object... values) {
-        this.reason.append(Bundle.format(key, locale, values));
+        Bundle.format(reason, key, key, Bundle.locale(locale), values);
         return this;
     }
 
@@ -0,0 +1,151 @@
+package useful;
+
+import java.text.ChoiceFormat;
+import java.text.DateFormat;
+import java.text.Format;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Bundle pattern split into literal segments and argument slots once, so that it is not parsed again on each format.
+ * The output is the same as the one of arc's TextFormatter with message format enabled, including its escaping of apostrophes and curly braces.
+ *
+ * @author xzxADIxzx
+ */
+public class MessageTemplate {
+
+    /** Noncharacters that surround argument indices when the template is split. */
+    private static final char markBegin = '\uFDD0', markEnd = '\uFDD1';
+
+    public final String pattern;
+    public final Locale locale;
+
+    /** Literal segments around the slots, there is one more segment than slots. */
+    private final String[] literals;
+    /** Argument index and custom format of each slot, null formats mean the default ones. */
+    private final int[] slots;
+    private final Format[] formats;
+
+    /** Used instead of the segments for the patterns that contain the noncharacters, which should never happen. */
+    private final MessageFormat fallback;
+
+    /** Default formats for numbers and dates, the same ones that message format creates for each argument. */
+    private NumberFormat numberFormat;
+    private DateFormat dateFormat;
+
+    public MessageTemplate(String pattern, Locale locale) {
+        this.pattern = pattern;
+        this.locale = locale;
+
+        var format = new MessageFormat(escape(pattern), locale);
+        var formats = format.getFormats();
+
+        if (pattern.indexOf(markBegin) != -1 || pattern.indexOf(markEnd) != -1) {
+            this.literals = null;
+            this.slots = null;
+            this.formats = null;
+            this.fallback = format;
+            return;
+        }
+
+        // format the pattern with markers instead of the arguments to find out where the slots are
+        var marks = new Object[format.getFormatsByArgumentIndex().length];
+        for (int i = 0; i < marks.length; i++)
+            marks[i] = markBegin + String.valueOf(i) + markEnd;
+
+        format.setFormats(new Format[formats.length]);
+        var marked = format.format(marks);
+
+        this.literals = new String[formats.length + 1];
+        this.slots = new int[formats.length];
+        this.formats = formats;
+        this.fallback = null;
+
+        int start = 0;
+        for (int i = 0; i < slots.length; i++) {
+            int begin = marked.indexOf(markBegin, start), end = marked.indexOf(markEnd, begin);
+
+            literals[i] = marked.substring(start, begin);
+            slots[i] = Integer.parseInt(marked, begin + 1, end, 10);
+            start = end + 1;
+        }
+        literals[slots.length] = marked.substring(start);
+    }
+
+    /** @return the formatted pattern. */
+    public String format(Object... values) {
+        var builder = new StringBuilder();
+        format(builder, values);
+        return builder.toString();
+    }
+
+    /** Appends the formatted pattern to the builder, formats of the template are not thread-safe so the templates are locked while formatting. */
+    public synchronized void format(StringBuilder builder, Object... values) {
+        if (fallback != null) {
+            builder.append(fallback.format(values));
+            return;
+        }
+
+        builder.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            appendArgument(builder, i, values);
+            builder.append(literals[i + 1]);
+        }
+    }
+
+    /** Appends the argument of the slot exactly as {@link MessageFormat} does. */
+    private void appendArgument(StringBuilder builder, int slot, Object[] values) {
+        int index = slots[slot];
+        if (values == null || index >= values.length) {
+            builder.append('{').append(index).append('}');
+            return;
+        }
+
+        var value = values[index];
+        var format = formats[slot];
+
+        if (value == null) builder.append("null");
+        else if (format != null) {
+            var text = format.format(value);
+            if (format instanceof ChoiceFormat && text.indexOf('{') != -1) text = new MessageFormat(text, locale).format(values); // choices may contain other arguments
+
+            builder.append(text);
+        } else if (value instanceof Number) {
+            if (numberFormat == null) numberFormat = NumberFormat.getInstance(locale);
+            builder.append(numberFormat.format(value));
+        } else if (value instanceof Date) {
+            if (dateFormat == null) dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT, locale);
+            builder.append(dateFormat.format(value));
+        } else builder.append(value);
+    }
+
+    /** Escapes apostrophes and doubled curly braces the same way as TextFormatter does, as they are special for message format. */
+    public static String escape(String pattern) {
+        StringBuilder builder = null;
+        int length = pattern.length();
+
+        for (int i = 0; i < length; i++) {
+            char next = pattern.charAt(i);
+            if (next == '\'') {
+                if (builder == null) builder = new StringBuilder(length + 16).append(pattern, 0, i);
+                builder.append("''");
+            } else if (next == '{') {
+                int j = i + 1;
+                while (j < length && pattern.charAt(j) == '{') j++;
+
+                int escaped = (j - i) / 2;
+                if (escaped > 0) {
+                    if (builder == null) builder = new StringBuilder(length + 16).append(pattern, 0, i);
+                    builder.append('\'').append("{".repeat(escaped)).append('\'');
+                }
+
+                if ((j - i) % 2 != 0 && builder != null) builder.append('{');
+                i = j - 1;
+            } else if (builder != null) builder.append(next);
+        }
+
+        return builder == null ? pattern : builder.toString();
+    }
+}
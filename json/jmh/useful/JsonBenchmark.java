@@ -0,0 +1,98 @@
+package useful;
+
+import arc.util.serialization.JsonValue;
+import arc.util.serialization.JsonWriter.OutputType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import useful.JsonCorpus.Match;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of reading, writing and round trips of each {@link JsonCorpus} compared to arc's json as the baseline.
+ * Run with {@code gradlew :json:jmh}, the gc profiler is enabled to report the allocation rate.
+ *
+ * @author xzxADIxzx
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"configs", "nesting", "numbers", "strings", "pojos"})
+    public JsonCorpus corpus;
+
+    /** Texts of the corpus written by this module and by arc, which writes class tags differently. */
+    private String text, arcText;
+
+    /** Values to write, the objects are only used by the pojos corpus. */
+    private Json json;
+    private Object object;
+    private JsonValue arcJson;
+
+    private final arc.util.serialization.Json arc = new arc.util.serialization.Json(OutputType.json);
+    private final arc.util.serialization.JsonReader arcReader = new arc.util.serialization.JsonReader();
+
+    @Setup
+    public void setup() {
+        text = corpus.generate(new Random(42));
+        json = Json.read(text);
+
+        if (corpus == JsonCorpus.pojos) {
+            object = Json.readAs(text);
+            arcText = arc.toJson(object);
+        } else arcText = text;
+
+        arcJson = arcReader.parse(arcText);
+    }
+
+    // region useful
+
+    @Benchmark
+    public Object read() {
+        return corpus == JsonCorpus.pojos ? Json.readAs(text) : Json.read(text);
+    }
+
+    @Benchmark
+    public String write() {
+        return corpus == JsonCorpus.pojos ? Json.write(object, Json.JsonStyle.compact) : json.write(Json.JsonStyle.compact);
+    }
+
+    @Benchmark
+    public String roundTrip() {
+        return corpus == JsonCorpus.pojos ? Json.write(Json.readAs(text), Json.JsonStyle.compact) : Json.read(text).write(Json.JsonStyle.compact);
+    }
+
+    // endregion
+    // region arc
+
+    @Benchmark
+    public Object arcRead() {
+        return corpus == JsonCorpus.pojos ? arc.fromJson(Match.class, arcText) : arcReader.parse(arcText);
+    }
+
+    @Benchmark
+    public String arcWrite() {
+        return corpus == JsonCorpus.pojos ? arc.toJson(object) : arcJson.toJson(OutputType.json);
+    }
+
+    @Benchmark
+    public String arcRoundTrip() {
+        return corpus == JsonCorpus.pojos ? arc.toJson(arc.fromJson(Match.class, arcText)) : arcReader.parse(arcText).toJson(OutputType.json);
+    }
+
+    // endregion
+}
@@ -0,0 +1,136 @@
+package useful;
+
+import java.util.Random;
+
+/**
+ * Representative inputs for the benchmarks, each one is generated with a fixed seed so that the runs are comparable.
+ *
+ * @author xzxADIxzx
+ */
+public enum JsonCorpus {
+
+    /** Small flat configs with a dozen of keys, like the ones of plugins. */
+    configs {
+        @Override
+        String generate(Random random) {
+            Json json = new Json();
+            json.put("name", "server-" + random.nextInt(100));
+            json.put("port", 6567);
+            json.put("enabled", true);
+            json.put("motd", "Welcome to the server, have fun!");
+            json.put("maxPlayers", 32);
+            json.put("tickRate", 60.0f);
+            json.put("whitelist", false);
+            json.put("locale", "en");
+            json.put("timeout", 30000L);
+            json.put("ratio", random.nextDouble());
+            json.put("admins", new String[] {"admin", "moderator"});
+            json.put("colors", new int[] {0xffd37f, 0x8ca9e8, 0xf25555});
+            return json.write(Json.JsonStyle.compact);
+        }
+    },
+
+    /** Objects and arrays nested a hundred levels deep. */
+    nesting {
+        @Override
+        String generate(Random random) {
+            Json root = new Json(), current = root;
+            for (int i = 0; i < 100; i++) {
+                Json next = new Json();
+                current.put("depth", i);
+                current.put("items", new Object[] {i, "item" + i, random.nextBoolean()});
+                current.put("child", next);
+                current = next;
+            }
+            return root.write(Json.JsonStyle.compact);
+        }
+    },
+
+    /** Large arrays of integers and floating point numbers, like the ones of maps and statistics. */
+    numbers {
+        @Override
+        String generate(Random random) {
+            int[] ints = new int[10000];
+            double[] doubles = new double[10000];
+            for (int i = 0; i < ints.length; i++) {
+                ints[i] = random.nextInt();
+                doubles[i] = random.nextDouble() * 1000;
+            }
+
+            return new Json().put("ints", ints).put("doubles", doubles).write(Json.JsonStyle.compact);
+        }
+    },
+
+    /** Long strings with escape sequences and non-ascii characters, like the ones of bundles and chats. */
+    strings {
+        @Override
+        String generate(Random random) {
+            Json json = new Json();
+            for (int i = 0; i < 500; i++) {
+                StringBuilder builder = new StringBuilder();
+                for (int j = 0; j < 80; j++) {
+                    int next = random.nextInt(20);
+                    builder.append(next == 0 ? '"' : next == 1 ? '\n' : next == 2 ? '\u0436' : next == 3 ? '\\' : (char) ('a' + random.nextInt(26)));
+                }
+                json.put("message" + i, builder.toString());
+            }
+            return json.write(Json.JsonStyle.compact);
+        }
+    },
+
+    /** Objects deserialized into classes through reflection, see {@link Match}. */
+    pojos {
+        @Override
+        String generate(Random random) {
+            return Json.write(Match.generate(random), Json.JsonStyle.compact);
+        }
+    };
+
+    /** @return text of the corpus. */
+    abstract String generate(Random random);
+
+    public static class Match {
+        public String map;
+        public int wave;
+        public float duration;
+        public boolean pvp;
+        public Player[] players;
+
+        public Match() {}
+
+        static Match generate(Random random) {
+            Match match = new Match();
+            match.map = "Ground Zero";
+            match.wave = random.nextInt(100);
+            match.duration = random.nextFloat() * 3600;
+            match.pvp = random.nextBoolean();
+            match.players = new Player[100];
+
+            for (int i = 0; i < match.players.length; i++) {
+                Player player = match.players[i] = new Player();
+                player.uuid = Long.toHexString(random.nextLong());
+                player.name = "player" + i;
+                player.kills = random.nextInt(1000);
+                player.deaths = random.nextInt(1000);
+                player.playtime = random.nextLong() & 0xffffffffL;
+                player.admin = random.nextInt(10) == 0;
+                player.x = random.nextFloat() * 500;
+                player.y = random.nextFloat() * 500;
+                player.items = new int[] {random.nextInt(100), random.nextInt(100), random.nextInt(100)};
+            }
+
+            return match;
+        }
+    }
+
+    public static class Player {
+        public String uuid, name;
+        public int kills, deaths;
+        public long playtime;
+        public boolean admin;
+        public float x, y;
+        public int[] items;
+
+        public Player() {}
+    }
+}
@@ -1,10 +1,18 @@
 package useful;
 
 import useful.Json.JsonMap.Consumer;
+import useful.JsonReader.Token;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
-import java.util.ArrayList;
-import java.util.function.Function;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Just a small and simple json parser.
@@ -34,7 +42,11 @@ public class Json {
         values.each(cons);
     }
 
-    /** @return a value by a key in json. */
+    /**
+     * @return a value by a key in json.
+     * Arrays that are read are always Object[], see {@link JsonArray#read(JsonReader)}, while arrays that are put keep their type.
+     * Use {@link #getArray(String, Class)} or the typed getters such as {@link #getIntArray(String)} to get arrays of a known type.
+     */
     public Object get(String key) {
         return values.get(key);
     }
@@ -44,17 +56,62 @@ public class Json {
      * @throws ClassCastException value cannot be cast to a specific type.
      */
     public <T> T getAs(String key) {
-        return (T) values.get(key);
+        return (T) get(key);
     }
 
     /**
-     * @return an array cast to a specific type.
-     * @throws ClassCastException DO NOT USE INT.CLASS, USE INTEGER INSTEAD!
+     * @return an array cast to a specific type, primitive types are replaced with their wrappers.
+     * @throws ClassCastException value cannot be cast to a specific type.
      */
     public <T> T[] getArray(String key, Class<T> referenced) {
         return new JsonArray(get(key)).cast(referenced);
     }
 
+    /**
+     * @return an array converted to the given array type or null if there is no value, used to read arrays into existing objects.
+     * The array is written into the current one if it has the same type and length, otherwise into a new array, so the arrays of this json are never returned.
+     */
+    public Object getArray(String key, Class<?> type, Object current) {
+        Object value = get(key);
+        return value == null ? null : new JsonArray(value).into(type, current);
+    }
+
+    /** @return an int array or null if there is no value, int arrays that are put are returned as is, other arrays are converted. */
+    public int[] getIntArray(String key) {
+        Object value = get(key);
+        return value == null ? null : new JsonArray(value).ints();
+    }
+
+    /** @return a long array or null if there is no value, long arrays that are put are returned as is, other arrays are converted. */
+    public long[] getLongArray(String key) {
+        Object value = get(key);
+        return value == null ? null : new JsonArray(value).longs();
+    }
+
+    /** @return a float array or null if there is no value, float arrays that are put are returned as is, other arrays are converted. */
+    public float[] getFloatArray(String key) {
+        Object value = get(key);
+        return value == null ? null : new JsonArray(value).floats();
+    }
+
+    /** @return a double array or null if there is no value, double arrays that are put are returned as is, other arrays are converted. */
+    public double[] getDoubleArray(String key) {
+        Object value = get(key);
+        return value == null ? null : new JsonArray(value).doubles();
+    }
+
+    /** @return a byte array or null if there is no value. */
+    public byte[] getByteArray(String key) {
+        Object value = get(key);
+        return value == null ? null : new JsonArray(value).bytes();
+    }
+
+    /** @return a boolean array or null if there is no value, boolean arrays that are put are returned as is, other arrays are converted. */
+    public boolean[] getBooleanArray(String key) {
+        Object value = get(key);
+        return value == null ? null : new JsonArray(value).booleans();
+    }
+
     /** Puts a value to json by a key. */
     public Json put(String key, Object value) {
         values.put(key, value);
@@ -63,10 +120,7 @@ public class Json {
 
     /** Remove a value from json by a key. */
     public boolean remove(String key) {
-        if (values.contains(key)) {
-            values.remove(key);
-            return true;
-        } else return false;
+        return values.remove(key);
     }
 
     /** @return whether the json contains a key. */
@@ -79,46 +133,176 @@ public class Json {
         values.clear();
     }
 
-    /** @return a string representation of this {@link Json}. */
-    public String write(JsonStyle style) {
-        JsonStyle.indent++;
-        StringBuilder builder = style.createJson();
+    /** @return a deep copy of this json, nested jsons and arrays are copied as well. */
+    public Json copy() {
+        Json copy = new Json();
+        values.each((key, value) -> copy.put(key, copy(value)));
+        return copy;
+    }
 
-        values.each((key, value) -> builder.append(style.add(serializator.serializeString(key), write(value, style))));
+    private static Object copy(Object value) {
+        if (value instanceof Json json) return json.copy();
+        if (value != null && value.getClass().isArray()) return new JsonArray(value).into(value.getClass(), null);
 
-        JsonStyle.indent--;
-        return style.toString(builder);
+        return value;
     }
 
-    public static String write(Object object, JsonStyle style) {
-        // object can initially be json
-        if (object instanceof Json json) return json.write(style);
+    /** Remove all values from json, keeping its arrays as well as nested jsons and arrays to be reused by {@link #read(JsonReader, Json)}. */
+    public void reset() {
+        values.reset();
+    }
 
-        object = serializator.serializeField(object);
+    /** @return a string representation of this {@link Json}. */
+    public String write(JsonStyle style) {
+        StringBuilder builder = new StringBuilder();
+        new JsonWriter(builder, style).writeJson(this);
+        return builder.toString();
+    }
 
-        if (object instanceof Json json) return json.write(style);
-        if (object instanceof JsonArray array) return array.write(style);
+    /** Writes a string representation of this {@link Json} to the given output. */
+    public void write(Appendable output, JsonStyle style) {
+        new JsonWriter(output, style).writeJson(this);
+    }
 
-        return object.toString();
+    public static String write(Object object, JsonStyle style) {
+        StringBuilder builder = new StringBuilder();
+        new JsonWriter(builder, style).write(object);
+        return builder.toString();
     }
 
     /** @return {@link Json} parsed from the given string. */
     public static Json read(String json) {
-        JsonCutter cutter = JsonCutter.json(json);
+        JsonReader reader = new JsonReader(json);
+        Json result = read(reader);
+
+        reader.finish();
+        return result;
+    }
+
+    /** @return {@link Json} read from the UTF-8 file, which is mapped into memory instead of being read into a string. */
+    public static Json read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** @return {@link Json} read from the UTF-8 file starting at the current position of the channel, see {@link JsonReader#JsonReader(FileChannel)}. */
+    public static Json read(FileChannel channel) {
+        JsonReader reader = new JsonReader(channel);
+        Json result = read(reader);
+
+        reader.finish();
+        return result;
+    }
+
+    /**
+     * @return {@link Json} parsed from the given string, nested jsons and arrays are only parsed when they are accessed for the first time.
+     * Sections that are never accessed are written back as they were in the string, with the same formatting.
+     */
+    public static Json readLazy(String json) {
+        JsonReader reader = new JsonReader(json);
+        Json result = readLazy(reader);
+
+        reader.finish();
+        return result;
+    }
+
+    /** @return {@link Json} read from the reader that must work over characters in memory, nested jsons and arrays are skipped and read on access. */
+    public static Json readLazy(JsonReader reader) {
         Json result = new Json();
+        reader.beginJson();
+
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            Token token = reader.nextToken();
+
+            result.put(key, token == Token.beginJson || token == Token.beginArray ? reader.nextSection() : readField(reader));
+        }
+
+        reader.endJson();
+        return result;
+    }
+
+    /** @return the given json filled with values parsed from the string, see {@link #read(JsonReader, Json)}. */
+    public static Json read(String json, Json into) {
+        JsonReader reader = new JsonReader(json);
+        Json result = read(reader, into);
 
-        while (cutter.hasNext()) {
-            result.put(serializator.deserializeString(cutter.next()), readAs(cutter.next()));
+        reader.finish();
+        return result;
+    }
+
+    /**
+     * Resets the given json and reads values into it, reusing its arrays as well as nested jsons and arrays that were under the same keys.
+     * Nested objects are not deserialized, so that they can be applied to existing objects via {@link JsonSerializator#readInto(Object, Json)}.
+     * Values taken from the json before are overwritten by this, so they must not be used anymore.
+     */
+    public static Json read(JsonReader reader, Json into) {
+        into.reset();
+        reader.beginJson();
+
+        while (reader.hasNext()) {
+            String key = reader.nextName(into.values.staleKey());
+            into.put(key, readField(reader, into.values.stale(key)));
         }
 
+        reader.endJson();
+        return into;
+    }
+
+    /** @return {@link Json} read from the reader, nested objects are deserialized via {@link JsonSerializator}. */
+    public static Json read(JsonReader reader) {
+        Json result = new Json();
+        reader.beginJson();
+
+        while (reader.hasNext())
+            result.put(reader.nextName(), readAs(reader));
+
+        reader.endJson();
         return result;
     }
 
     public static Object readAs(String field) {
-        Object object = serializator.deserializeField(field);
+        JsonReader reader = new JsonReader(field);
+        Object result = readAs(reader);
+
+        reader.finish();
+        return result;
+    }
+
+    /** @return a value read from the reader, objects are deserialized via {@link JsonSerializator}. */
+    public static Object readAs(JsonReader reader) {
+        Object object = readField(reader);
         return object instanceof Json json ? serializator.deserializeObject(json) : object;
     }
 
+    /** @return a raw value read from the reader, the stale json or array is reused if the value is of the same type. */
+    static Object readField(JsonReader reader, Object stale) {
+        return switch (reader.nextToken()) {
+            case beginJson -> read(reader, stale instanceof Json json ? json : new Json());
+            case beginArray -> JsonArray.read(reader, stale, true);
+            default -> readField(reader);
+        };
+    }
+
+    /** @return a raw value read from the reader: {@link Json}, array, string, number, boolean or null. */
+    public static Object readField(JsonReader reader) {
+        return switch (reader.nextToken()) {
+            case beginJson -> read(reader);
+            case beginArray -> JsonArray.read(reader);
+            case string -> reader.nextString();
+            case number -> reader.nextNumber();
+            case bool -> reader.nextBoolean();
+            case nil -> {
+                reader.nextNull();
+                yield null;
+            }
+            default -> throw new RuntimeException("Unexpected " + reader.nextToken() + " token!");
+        };
+    }
+
     /** Makes the object serializable for the json parser. */
     public interface JsonSerializable {
 
@@ -141,90 +325,221 @@ public class Json {
 
     /** All json styles that are used during writing. */
     public enum JsonStyle {
-        compact(0, "{", "%s:%s,", "%s,", "%s}"), standard(0, "{ ", "%s: %s, ", "%s, ", " %s}"), beautiful(4, "{\n", "%s: %s,\n", "   %s,\n", "\n%s}");
+        compact(0, "", ":", ""), standard(0, " ", ": ", ""), beautiful(4, "\n", ": ", "   ");
 
-        private static int indent;
+        /** Written after opening brackets, after commas and before closing brackets. */
+        final String line;
+        /** Written between a key and its value. */
+        final String colon;
+        /** Written before each value of an array. */
+        final String prefix;
 
-        private final int spaces;
-        private final String start, end;
-        private final String keyvalue, value;
+        private final String[] indents = new String[16];
 
-        JsonStyle(int spaces, String start, String keyvalue, String value, String end) {
-            this.spaces = spaces;
-            this.start = start;
-            this.keyvalue = keyvalue;
-            this.value = value;
-            this.end = end;
+        JsonStyle(int spaces, String line, String colon, String prefix) {
+            this.line = line;
+            this.colon = colon;
+            this.prefix = prefix;
+
+            for (int i = 0; i < indents.length; i++)
+                indents[i] = " ".repeat(spaces * i);
+        }
+
+        /** @return spaces for the given number of indents. */
+        String indent(int indent) {
+            return indent < indents.length ? indents[indent] : indents[1].repeat(indent);
         }
+    }
+
+    /** Insertion-ordered map that switches from linear search to a hash index once it grows past a few keys. */
+    public static class JsonMap {
+
+        /** Maps with at most this number of keys are searched linearly and do not allocate an index. */
+        private static final int linearLimit = 8;
+
+        private String[] keys = new String[4];
+        private Object[] values = new Object[4];
+
+        /** Open-addressing table of entry indices plus one, zero marks an empty slot. */
+        private int[] index;
 
-        public StringBuilder createJson() {
-            return new StringBuilder(start);
+        /** Number of live entries and number of used slots including removed ones. */
+        private int size, used;
+        /** Number of slots that still hold entries from before the last {@link #reset()}, the ones after {@link #used} can be reused. */
+        private int stale;
+
+        public void each(Consumer cons) {
+            for (int i = 0; i < used; i++)
+                if (keys[i] != null) cons.get(keys[i], value(i));
         }
 
-        public StringBuilder createArray() {
-            return new StringBuilder(start.replace('{', '['));
+        /** Iterates over all values leaving lazy sections as they are, used to write them verbatim. */
+        void eachRaw(Consumer cons) {
+            for (int i = 0; i < used; i++)
+                if (keys[i] != null) cons.get(keys[i], values[i]);
         }
 
-        public String add(String key, String value) {
-            return indent() + this.keyvalue.formatted(key, value);
+        public Object get(String key) {
+            int entry = find(key);
+            return entry == -1 ? null : value(entry);
         }
 
-        public String add(String value) {
-            return indent() + this.value.formatted(value);
+        public void put(String key, Object value) {
+            if (key == null) throw new IllegalArgumentException("Key cannot be null");
+
+            int entry = find(key);
+            if (entry != -1) {
+                values[entry] = value;
+                return;
+            }
+
+            if (used == keys.length) grow();
+
+            keys[used] = key;
+            values[used] = value;
+
+            if (index != null) insert(used);
+            used++;
+
+            if (++size > linearLimit && index == null) rehash(keys.length * 2);
         }
 
-        public String toString(StringBuilder builder) {
-            boolean json = builder.charAt(0) == '{';
-            if (builder.length() == start.length()) return json ? "{}" : "[]";
+        public boolean remove(String key) {
+            int entry = find(key);
+            if (entry == -1) return false;
 
-            builder.setLength(builder.lastIndexOf(","));
-            return builder.append((json ? this.end : this.end.replace('}', ']')).formatted(indent())).toString();
+            if (index != null) delete(entry);
+
+            keys[entry] = null;
+            values[entry] = null;
+            size--;
+
+            if (entry == used - 1) used--; // the last entry can be dropped right away
+            return true;
         }
 
-        private String indent() {
-            return " ".repeat(spaces).repeat(indent);
+        public boolean contains(String key) {
+            return find(key) != -1;
         }
-    }
 
-    public static class JsonMap {
+        public int size() {
+            return size;
+        }
 
-        private final ArrayList<String> keys = new ArrayList<>();
-        private final ArrayList<Object> values = new ArrayList<>();
+        public void clear() {
+            Arrays.fill(keys, 0, Math.max(used, stale), null);
+            Arrays.fill(values, 0, Math.max(used, stale), null);
+            if (index != null) Arrays.fill(index, 0);
 
-        public void each(Consumer cons) {
-            for (int i = 0; i < keys.size(); i++)
-                cons.get(keys.get(i), values.get(i));
+            size = used = stale = 0;
         }
 
-        public Object get(String key) {
-            int index = keys.indexOf(key);
-            return index == -1 ? null : values.get(index);
+        /** Removes all entries leaving them in the arrays, so that the following puts in the same order can reuse their values. */
+        void reset() {
+            if (index != null) Arrays.fill(index, 0);
+
+            stale = Math.max(used, stale);
+            size = used = 0;
         }
 
-        public void put(String key, Object value) {
-            if (keys.contains(key)) {
-                int index = keys.indexOf(key);
-                values.set(index, value);
-            } else {
-                keys.add(key);
-                values.add(value);
+        /** @return the key of the stale entry that the next put will overwrite or null if there is no such entry. */
+        String staleKey() {
+            return used < stale ? keys[used] : null;
+        }
+
+        /** @return the value of the stale entry that the next put will overwrite if it has the same key, otherwise null. */
+        Object stale(String key) {
+            return used < stale && key.equals(keys[used]) ? values[used] : null;
+        }
+
+        /** @return the value of the entry, reading it first if it is a lazy section. */
+        private Object value(int entry) {
+            Object value = values[entry];
+            if (value instanceof JsonSection section) values[entry] = value = section.read();
+
+            return value;
+        }
+
+        /** @return the index of the entry with the given key or -1 if there is no such entry. */
+        private int find(String key) {
+            if (key == null) return -1;
+
+            if (index == null) {
+                for (int i = 0; i < used; i++)
+                    if (key.equals(keys[i])) return i;
+                return -1;
+            }
+
+            int mask = index.length - 1;
+            for (int slot = hash(key) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+                int entry = index[slot] - 1;
+                if (key.equals(keys[entry])) return entry;
             }
+
+            return -1;
         }
 
-        public void remove(String key) {
-            int index = keys.indexOf(key);
-            if (index == -1) return;
-            keys.remove(index);
-            values.remove(index);
+        /** Makes room for one more entry, either by dropping removed ones or by doubling the arrays. */
+        private void grow() {
+            if (size < used * 3 / 4) compact();
+            else {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+
+            if (index != null) rehash(keys.length * 2);
         }
 
-        public boolean contains(String key) {
-            return keys.contains(key);
+        /** Shifts live entries to the beginning of the arrays preserving their order. */
+        private void compact() {
+            int live = 0;
+            for (int i = 0; i < used; i++) {
+                if (keys[i] == null) continue;
+
+                keys[live] = keys[i];
+                values[live++] = values[i];
+            }
+
+            Arrays.fill(keys, live, used, null);
+            Arrays.fill(values, live, used, null);
+            used = live;
         }
 
-        public void clear() {
-            keys.clear();
-            values.clear();
+        private void rehash(int capacity) {
+            if (size < used) compact();
+
+            index = new int[capacity];
+            for (int i = 0; i < used; i++) insert(i);
+        }
+
+        private void insert(int entry) {
+            int mask = index.length - 1, slot = hash(keys[entry]) & mask;
+            while (index[slot] != 0) slot = (slot + 1) & mask;
+
+            index[slot] = entry + 1;
+        }
+
+        /** Removes the entry from the index shifting back the following slots so that probing stays correct. */
+        private void delete(int entry) {
+            int mask = index.length - 1, slot = hash(keys[entry]) & mask;
+            while (index[slot] != entry + 1) slot = (slot + 1) & mask;
+
+            for (int next = (slot + 1) & mask; index[next] != 0; next = (next + 1) & mask) {
+                int home = hash(keys[index[next] - 1]) & mask;
+
+                // move the slot back only if its home position is not between the gap and the slot itself
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    index[slot] = index[next];
+                    slot = next;
+                }
+            }
+
+            index[slot] = 0;
+        }
+
+        private static int hash(String key) {
+            int hash = key.hashCode();
+            return hash ^ (hash >>> 16);
         }
 
         public interface Consumer {
@@ -232,9 +547,34 @@ public class Json {
         }
     }
 
+    /** Nested json or array that is not read yet, keeps the whole source alive until it is read. */
+    static class JsonSection {
+
+        final char[] source;
+        final int start, end;
+
+        JsonSection(char[] source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        /** @return the value this section contains, nested jsons are read lazily as well. */
+        Object read() {
+            JsonReader reader = new JsonReader(source, start, end);
+            Object result = reader.nextToken() == Token.beginJson ? serializator.deserializeObject(readLazy(reader)) : JsonArray.read(reader);
+
+            reader.finish();
+            return result;
+        }
+    }
+
     public static class JsonArray {
 
-        private final Object array;
+        /** Arrays with at least this number of characters are read in parallel by {@link #readParallel(char[])}. */
+        public static int parallelThreshold = 1 << 20;
+
+        final Object array;
 
         public JsonArray(Object array) {
             if (!array.getClass().isArray()) throw new IllegalArgumentException("Object is not an array");
@@ -242,135 +582,296 @@ public class Json {
         }
 
         public String write(JsonStyle style) {
-            int length = Array.getLength(array);
-            StringBuilder builder = style.createArray();
+            StringBuilder builder = new StringBuilder();
+            new JsonWriter(builder, style).writeArray(this);
+            return builder.toString();
+        }
 
-            for (int i = 0; i < length; i++) {
-                builder.append(style.add(Json.write(Array.get(array, i), style)));
+        public static Object read(String array) {
+            return readWhole(new JsonReader(array));
+        }
+
+        /** @return the array read from the reader, which must contain nothing else. */
+        private static Object readWhole(JsonReader reader) {
+            Object result = read(reader);
+
+            reader.finish();
+            return result;
+        }
+
+        /** See {@link #readParallel(char[])}. */
+        public static Object readParallel(String array) {
+            return array.length() < parallelThreshold ? read(array) : readParallel(array.toCharArray());
+        }
+
+        /**
+         * Reads a large array of objects on the common fork-join pool, the result is the same as the one of {@link #read(String)}.
+         * Boundaries of the elements are found by a quick scan of brackets and quotes, then the elements are read in chunks.
+         * Arrays shorter than {@link #parallelThreshold} and arrays of numbers or booleans are read in the current thread.
+         */
+        public static Object readParallel(char[] array) {
+            if (array.length < parallelThreshold) return readWhole(new JsonReader(array));
+
+            int[] bounds = bounds(array);
+            int count = bounds.length - 1;
+
+            JsonReader first = new JsonReader(array, bounds[0] + 1, bounds[1]);
+            if (count == 1 || first.nextToken() == Token.number || first.nextToken() == Token.bool) return readWhole(new JsonReader(array)); // elements of such arrays are too cheap to read in parallel
+
+            Object[] result = new Object[count];
+            int chunk = Math.max(1, count / (ForkJoinPool.getCommonPoolParallelism() * 8));
+
+            ForkJoinPool.commonPool().invoke(new ReadTask(array, bounds, result, 0, count, chunk));
+            return result;
+        }
+
+        /** @return positions of the opening bracket, of the commas between the elements and of the closing bracket of the array. */
+        private static int[] bounds(char[] array) {
+            int[] bounds = new int[1024];
+            int size = 0, depth = 0, i = 0;
+
+            // kinds of the open brackets, true for curly braces
+            boolean[] braces = new boolean[64];
+
+            while (i < array.length && space(array[i])) i++;
+            if (i == array.length || array[i] != '[') throw new RuntimeException("Array must be enclosed in square brackets!");
+
+            bounds[size++] = i++;
+            for (; i < array.length; i++) {
+                switch (array[i]) {
+                    case '"' -> {
+                        for (i++; i < array.length && array[i] != '"'; i++)
+                            if (array[i] == '\\') i++;
+                    }
+                    case '{', '[' -> {
+                        if (depth == braces.length) braces = Arrays.copyOf(braces, depth * 2);
+                        braces[depth++] = array[i] == '{';
+                    }
+                    case '}', ']' -> {
+                        boolean brace = array[i] == '}';
+                        if (depth > 0) {
+                            if (braces[--depth] == brace) continue;
+                            throw new RuntimeException(brace ? "Array must be enclosed in square brackets!" : "Json must be enclosed in curly braces!");
+                        }
+
+                        if (brace) throw new RuntimeException("Array must be enclosed in square brackets!");
+                        if (size == bounds.length) bounds = Arrays.copyOf(bounds, size * 2);
+                        bounds[size++] = i;
+
+                        for (i++; i < array.length; i++)
+                            if (!space(array[i])) throw new RuntimeException("Unexpected characters after the end of json!");
+                        return Arrays.copyOf(bounds, size);
+                    }
+                    case ',' -> {
+                        if (depth > 0) continue;
+                        if (size == bounds.length) bounds = Arrays.copyOf(bounds, size * 2);
+                        bounds[size++] = i;
+                    }
+                }
             }
 
-            return style.toString(builder);
+            throw new RuntimeException("Unexpected end of json!");
         }
 
-        public static Object read(String array) {
-            JsonCutter cutter = JsonCutter.array(array);
-            ArrayList<Object> result = new ArrayList<>();
+        private static boolean space(char next) {
+            return next == ' ' || next == '\n' || next == '\r' || next == '\t';
+        }
 
-            while (cutter.hasNext()) {
-                result.add(Json.readAs(cutter.next()));
+        /** Reads the elements between the given bounds, splitting the range in halves until it is small enough. */
+        private static class ReadTask extends RecursiveAction {
+
+            private static final long serialVersionUID = 1L;
+
+            private final char[] array;
+            private final int[] bounds;
+            private final Object[] result;
+            private final int from, to, chunk;
+
+            private ReadTask(char[] array, int[] bounds, Object[] result, int from, int to, int chunk) {
+                this.array = array;
+                this.bounds = bounds;
+                this.result = result;
+                this.from = from;
+                this.to = to;
+                this.chunk = chunk;
             }
 
-            return result.toArray();
+            @Override
+            protected void compute() {
+                if (to - from > chunk) {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new ReadTask(array, bounds, result, from, middle, chunk), new ReadTask(array, bounds, result, middle, to, chunk));
+                    return;
+                }
+
+                JsonSymbols symbols = JsonSymbols.shared == null ? new JsonSymbols(128) : JsonSymbols.shared; // shared by the elements of the chunk
+                for (int i = from; i < to; i++) {
+                    JsonReader reader = new JsonReader(array, bounds[i] + 1, bounds[i + 1]).symbols(symbols);
+                    result[i] = readAs(reader);
+                    reader.finish();
+                }
+            }
         }
 
-        public <T> T[] cast(Class<T> referenced) {
-            int lenght = Array.getLength(array);
-            ArrayList<T> result = new ArrayList<>();
+        /**
+         * @return an array of values read from the reader, it is always an Object[] with numbers boxed as {@link JsonReader#nextNumber()} does.
+         * Use {@link JsonReader#nextIntArray()} and the like to read arrays of numbers without boxing.
+         */
+        public static Object read(JsonReader reader) {
+            return read(reader, null, false);
+        }
+
+        /**
+         * Reads an array writing the values into the stale one, it is returned as is if the length matches.
+         * @param raw whether nested objects are left as {@link Json} instead of being deserialized, stale nested jsons are reused in this case.
+         */
+        static Object[] read(JsonReader reader, Object stale, boolean raw) {
+            reader.beginArray();
+            Object[] result = readObjects(reader, stale instanceof Object[] objects && objects.length > 0 ? objects : new Object[16], 0, raw);
 
-            for (int i = 0; i < lenght; i++) {
-                result.add((T) Array.get(array, i));
+            reader.endArray();
+            return result;
+        }
+
+        private static Object[] readObjects(JsonReader reader, Object[] array, int size, boolean raw) {
+            while (reader.hasNext()) {
+                if (size == array.length) array = Arrays.copyOf(array, Math.max(size * 2, 16));
+                array[size] = raw ? readField(reader, array[size]) : readAs(reader);
+                size++;
             }
 
-            return result.toArray((T[]) Array.newInstance(referenced, lenght));
+            return size == array.length ? array : Arrays.copyOf(array, size);
         }
-    }
 
-    /** Iterates over json keys and values as a string. */
-    public static class JsonCutter {
+        public <T> T[] cast(Class<T> referenced) {
+            if (referenced.isPrimitive()) referenced = (Class<T>) MethodType.methodType(referenced).wrap().returnType();
+
+            int length = Array.getLength(array);
+            T[] result = (T[]) Array.newInstance(referenced, length);
 
-        private final String base;
-        private int index;
+            for (int i = 0; i < length; i++) {
+                Object element = Array.get(array, i);
 
-        private JsonCutter(String base) {
-            this.base = base.substring(1, base.length() - 1);
+                // nested arrays are read as Object[] or put as arrays of any type
+                if (referenced.isArray() && element != null && !referenced.isInstance(element) && element.getClass().isArray()) element = new JsonArray(element).as(referenced);
+                result[i] = referenced.cast(element);
+            }
+
+            return result;
         }
 
-        public static JsonCutter json(String base) {
-            base = base.replaceAll("\n", "").trim();
+        /**
+         * @return the array converted to the given array type and written into the current array if it has the same type and length, otherwise into a new one.
+         * Nested arrays are written into the nested arrays of the current one and nested jsons are read into its objects, see {@link JsonSerializator#merge(Object, Object)}.
+         */
+        public Object into(Class<?> type, Object current) {
+            Class<?> component = type.getComponentType();
+            int length = Array.getLength(array);
+
+            if (component.isPrimitive()) {
+                Object converted = as(type);
+                if (!type.isInstance(converted)) return current; // no conversion for this kind of arrays
+
+                if (!type.isInstance(current) || Array.getLength(current) != length) current = Array.newInstance(component, length);
+                System.arraycopy(converted, 0, current, 0, length);
+                return current;
+            }
+
+            if (!type.isInstance(current) || Array.getLength(current) != length) current = Array.newInstance(component, length);
+            for (int i = 0; i < length; i++) {
+                Object element = Array.get(array, i), existing = Array.get(current, i);
+
+                if (element instanceof Json) element = serializator.merge(existing, element);
+                else if (element != null && element.getClass().isArray()) element = new JsonArray(element).into(component.isArray() ? component : element.getClass(), existing);
 
-            if (base.length() < 2) throw new RuntimeException("Minimum json length is 2 characters!");
-            if (base.charAt(0) != '{' || base.charAt(base.length() - 1) != '}') throw new RuntimeException("Json must be enclosed in curly braces!");
+                Array.set(current, i, component.cast(element));
+            }
 
-            return new JsonCutter(base);
+            return current;
         }
 
-        public static JsonCutter array(String base) {
-            base = base.replaceAll("\n", "").trim();
+        /** @return the array converted to the given array type, it is returned as is if it is already of this type. */
+        public Object as(Class<?> type) {
+            if (type.isInstance(array)) return array;
 
-            if (base.length() < 2) throw new RuntimeException("Minimum array length is 2 characters!");
-            if (base.charAt(0) != '[' || base.charAt(base.length() - 1) != ']') throw new RuntimeException("Array must be enclosed in square brackets!");
+            if (type == int[].class) return ints();
+            if (type == long[].class) return longs();
+            if (type == float[].class) return floats();
+            if (type == double[].class) return doubles();
+            if (type == byte[].class) return bytes();
+            if (type == boolean[].class) return booleans();
 
-            return new JsonCutter(base);
+            return type.getComponentType().isPrimitive() ? array : cast(type.getComponentType());
         }
 
-        public String next() {
-            int start = next(next -> next != ' ' && next != ':' && next != ',');
+        /** @return the array itself if it is an int array, otherwise its elements converted to ints. */
+        public int[] ints() {
+            if (array instanceof int[] ints) return ints;
 
-            switch (base.charAt(start)) {
-                case '"' -> skipString();
-                case '{' -> skipJson();
-                case '[' -> skipArray();
-                default -> skip();
-            }
+            int[] result = new int[Array.getLength(array)];
+            for (int i = 0; i < result.length; i++) result[i] = number(i).intValue();
 
-            return base.substring(start, index);
+            return result;
         }
 
-        public int next(Function<Character, Boolean> pred) {
-            while (hasNext())
-                if (pred.apply(base.charAt(index++))) break;
-            return index - 1;
+        /** @return the array itself if it is a long array, otherwise its elements converted to longs. */
+        public long[] longs() {
+            if (array instanceof long[] longs) return longs;
+
+            long[] result = new long[Array.getLength(array)];
+            for (int i = 0; i < result.length; i++) result[i] = number(i).longValue();
+
+            return result;
         }
 
-        public boolean hasNext() {
-            if (base.isEmpty() || index >= base.length()) return false;
+        /** @return the array itself if it is a float array, otherwise its elements converted to floats. */
+        public float[] floats() {
+            if (array instanceof float[] floats) return floats;
 
-            for (int i = index; i < base.length(); i++)
-                if (base.charAt(i) != ' ') return true;
+            float[] result = new float[Array.getLength(array)];
+            for (int i = 0; i < result.length; i++) result[i] = number(i).floatValue();
 
-            return false;
+            return result;
         }
 
-        public void skipString() {
-            while (hasNext()) {
-                if (base.charAt(index) == '\\') {
-                    index += 2; // skip \"
-                    continue;
-                }
+        /** @return the array itself if it is a double array, otherwise its elements converted to doubles. */
+        public double[] doubles() {
+            if (array instanceof double[] doubles) return doubles;
 
-                if (base.charAt(index++) == '"') break; // end of string
-            }
+            double[] result = new double[Array.getLength(array)];
+            for (int i = 0; i < result.length; i++) result[i] = number(i).doubleValue();
+
+            return result;
         }
 
-        public void skipJson() {
-            int braces = 1; // number of open curly braces
-            while (hasNext()) {
-                switch (base.charAt(index++)) {
-                    case '"' -> skipString(); // string may contain curly braces
-                    case '{' -> braces++;
-                    case '}' -> braces--;
-                }
+        /** @return the array itself if it is a byte array, otherwise its elements converted to bytes. */
+        public byte[] bytes() {
+            if (array instanceof byte[] bytes) return bytes;
+            if (array instanceof int[] ints) { // bytes are read as ints
+                byte[] result = new byte[ints.length];
+                for (int i = 0; i < result.length; i++) result[i] = (byte) ints[i];
 
-                if (braces == 0) break; // closing bracket
+                return result;
             }
+
+            byte[] result = new byte[Array.getLength(array)];
+            for (int i = 0; i < result.length; i++) result[i] = number(i).byteValue();
+
+            return result;
         }
 
-        public void skipArray() {
-            int braces = 1; // number of open square braces
-            while (hasNext()) {
-                switch (base.charAt(index++)) {
-                    case '"' -> skipString(); // string may contains square braces
-                    case '[' -> braces++;
-                    case ']' -> braces--;
-                }
+        /** @return the array itself if it is a boolean array, otherwise its elements cast to booleans. */
+        public boolean[] booleans() {
+            if (array instanceof boolean[] booleans) return booleans;
 
-                if (braces == 0) break; // closing bracket
-            }
+            boolean[] result = new boolean[Array.getLength(array)];
+            for (int i = 0; i < result.length; i++) result[i] = (Boolean) Array.get(array, i);
+
+            return result;
         }
 
-        public void skip() { // booleans and numbers are separated from the next by any of these characters
-            next(next -> next == ' ' || next == ',' || next == '}');
-            if (hasNext()) index -= 1; // very important thing
+        private Number number(int index) {
+            return array instanceof Object[] objects ? (Number) objects[index] : (Number) Array.get(array, index);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,383 @@
+package useful;
+
+import useful.Json.JsonArray;
+
+import java.lang.reflect.Array;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import static useful.Json.serializator;
+
+/**
+ * Compact binary form of {@link Json}: tagged values, varints, length-prefixed UTF-8 strings and a table of keys.
+ * Values read from it are the same as if the text form was read by {@link Json#read(String)}.
+ * Multibyte numbers are always big-endian regardless of the order of the given buffers.
+ *
+ * @author xzxADIxzx
+ */
+public class JsonBinary {
+
+    private static final byte nil = 0, falseValue = 1, trueValue = 2, intValue = 3, longValue = 4, floatValue = 5, doubleValue = 6, stringValue = 7, jsonValue = 8, arrayValue = 9;
+
+    // region write
+
+    /** @return binary representation of any value that can be serialized by {@link JsonSerializator}. */
+    public static byte[] write(Object object) {
+        Encoder encoder = new Encoder(ByteBuffer.allocate(256), true);
+        encoder.write(object);
+
+        ByteBuffer buffer = encoder.buffer;
+        byte[] result = new byte[buffer.position()];
+
+        buffer.flip().get(result);
+        return result;
+    }
+
+    /**
+     * Writes binary representation of the value to the buffer starting at its position.
+     * @throws BufferOverflowException there is not enough space left in the buffer.
+     */
+    public static void write(Object object, ByteBuffer buffer) {
+        new Encoder(buffer, false).write(object);
+    }
+
+    // endregion
+    // region read
+
+    /** @return {@link Json} read from the bytes, nested objects are deserialized via {@link JsonSerializator}. */
+    public static Json read(byte[] bytes) {
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    /** @return {@link Json} read from the buffer starting at its position, nested objects are deserialized via {@link JsonSerializator}. */
+    public static Json read(ByteBuffer buffer) {
+        try {
+            if (buffer.get() != jsonValue) throw new RuntimeException("Json expected!");
+            return new Decoder(buffer).readJson();
+        } catch (BufferUnderflowException e) {
+            throw new RuntimeException("Unexpected end of json!", e);
+        }
+    }
+
+    /** @return a value read from the bytes, objects are deserialized via {@link JsonSerializator}. */
+    public static Object readAs(byte[] bytes) {
+        return readAs(ByteBuffer.wrap(bytes));
+    }
+
+    /** @return a value read from the buffer starting at its position, objects are deserialized via {@link JsonSerializator}. */
+    public static Object readAs(ByteBuffer buffer) {
+        try {
+            return new Decoder(buffer).readAs();
+        } catch (BufferUnderflowException e) {
+            throw new RuntimeException("Unexpected end of json!", e);
+        }
+    }
+
+    // endregion
+
+    private static class Encoder {
+
+        /** Ids of keys that are already written, the following occurrences of a key refer to its id. */
+        private final HashMap<String, Integer> keys = new HashMap<>();
+        private final boolean growable;
+
+        private ByteBuffer buffer;
+
+        private Encoder(ByteBuffer buffer, boolean growable) {
+            this.buffer = buffer;
+            this.growable = growable;
+        }
+
+        private void write(Object object) {
+            if (object == null) put(nil);
+            else if (object instanceof Json json) writeJson(json);
+            else if (object instanceof String string) writeString(stringValue, string);
+            else if (object instanceof Integer || object instanceof Short || object instanceof Byte) writeInt(((Number) object).intValue());
+            else if (object instanceof Long value) writeLong(value);
+            else if (object instanceof Float value) writeFloat(value);
+            else if (object instanceof Double value) writeDouble(value);
+            else if (object instanceof Boolean value) put(value ? trueValue : falseValue);
+            else if (object instanceof Character value) writeString(stringValue, value.toString());
+            else {
+                object = serializator.serializeField(object);
+
+                if (object instanceof Json json) writeJson(json);
+                else if (object instanceof JsonArray array) writeArray(array.array);
+                else writeString(stringValue, object.toString());
+            }
+        }
+
+        private void writeJson(Json json) {
+            put(jsonValue);
+            putVarint(json.values.size());
+
+            json.each((key, value) -> {
+                writeKey(key);
+                write(value);
+            });
+        }
+
+        private void writeArray(Object array) {
+            int length = Array.getLength(array);
+
+            put(arrayValue);
+            putVarint(length);
+
+            // elements of primitive arrays are written without boxing
+            for (int i = 0; i < length; i++) {
+                if (array instanceof Object[] objects) write(objects[i]);
+                else if (array instanceof int[] ints) writeInt(ints[i]);
+                else if (array instanceof long[] longs) writeLong(longs[i]);
+                else if (array instanceof float[] floats) writeFloat(floats[i]);
+                else if (array instanceof double[] doubles) writeDouble(doubles[i]);
+                else if (array instanceof byte[] bytes) writeInt(bytes[i]);
+                else if (array instanceof boolean[] booleans) put(booleans[i] ? trueValue : falseValue);
+                else write(Array.get(array, i));
+            }
+        }
+
+        private void writeInt(int value) {
+            put(intValue);
+            putVarint(zigzag(value));
+        }
+
+        private void writeLong(long value) {
+            if (value == (int) value) {
+                writeInt((int) value); // the text form of such a long is read as int
+                return;
+            }
+
+            put(longValue);
+            putVarint(zigzag(value));
+        }
+
+        private void writeFloat(float value) {
+            ensure(5);
+            buffer.put(floatValue).putInt(order(Float.floatToRawIntBits(value)));
+        }
+
+        private void writeDouble(double value) {
+            ensure(9);
+            buffer.put(doubleValue).putLong(order(Double.doubleToRawLongBits(value)));
+        }
+
+        /** Writes the id of the key shifted left by one bit or the length of the new key shifted left with the lowest bit set followed by the key itself. */
+        private void writeKey(String key) {
+            Integer id = keys.get(key);
+            if (id != null) {
+                putVarint((long) id << 1);
+                return;
+            }
+
+            keys.put(key, keys.size());
+            writeString((byte) -1, key);
+        }
+
+        /** Writes the string as UTF-8, unpaired surrogates are written as three byte sequences so that any string survives the round trip. */
+        private void writeString(byte tag, String string) {
+            int length = string.length(), bytes = 0;
+            for (int i = 0; i < length; i++) {
+                char next = string.charAt(i);
+                if (next < 0x80) bytes++;
+                else if (next < 0x800) bytes += 2;
+                else if (Character.isHighSurrogate(next) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                    bytes += 4;
+                    i++;
+                } else bytes += 3;
+            }
+
+            if (tag == -1) putVarint((long) bytes << 1 | 1); // new key
+            else {
+                put(tag);
+                putVarint(bytes);
+            }
+
+            ensure(bytes);
+            for (int i = 0; i < length; i++) {
+                char next = string.charAt(i);
+                if (next < 0x80) buffer.put((byte) next);
+                else if (next < 0x800) buffer.put((byte) (0xC0 | next >> 6)).put((byte) (0x80 | next & 0x3F));
+                else if (Character.isHighSurrogate(next) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                    int code = Character.toCodePoint(next, string.charAt(++i));
+                    buffer.put((byte) (0xF0 | code >> 18)).put((byte) (0x80 | code >> 12 & 0x3F)).put((byte) (0x80 | code >> 6 & 0x3F)).put((byte) (0x80 | code & 0x3F));
+                } else buffer.put((byte) (0xE0 | next >> 12)).put((byte) (0x80 | next >> 6 & 0x3F)).put((byte) (0x80 | next & 0x3F));
+            }
+        }
+
+        private void put(byte value) {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        private void putVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) (value & 0x7F | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() >= bytes) return;
+            if (!growable) throw new BufferOverflowException();
+
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer = grown.put(buffer.flip());
+        }
+
+        private int order(int bits) {
+            return buffer.order() == ByteOrder.BIG_ENDIAN ? bits : Integer.reverseBytes(bits);
+        }
+
+        private long order(long bits) {
+            return buffer.order() == ByteOrder.BIG_ENDIAN ? bits : Long.reverseBytes(bits);
+        }
+
+        private static long zigzag(long value) {
+            return value << 1 ^ value >> 63;
+        }
+    }
+
+    private static class Decoder {
+
+        private final ArrayList<String> keys = new ArrayList<>();
+        private final ByteBuffer buffer;
+
+        private char[] chars = new char[64];
+
+        private Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private Object readAs() {
+            Object object = read();
+            return object instanceof Json json ? serializator.deserializeObject(json) : object;
+        }
+
+        private Object read() {
+            return switch (buffer.get()) {
+                case nil -> null;
+                case falseValue -> false;
+                case trueValue -> true;
+                case intValue -> (int) unzigzag(getVarint());
+                case longValue -> readLong();
+                case floatValue -> readFloat();
+                case doubleValue -> Double.longBitsToDouble(order(buffer.getLong()));
+                case stringValue -> readString(length(getVarint()));
+                case jsonValue -> readJson();
+                case arrayValue -> readArray();
+                default -> throw new RuntimeException("Unknown value type!");
+            };
+        }
+
+        private Json readJson() {
+            Json json = new Json();
+            int size = length(getVarint());
+
+            for (int i = 0; i < size; i++)
+                json.put(readKey(), readAs());
+
+            return json;
+        }
+
+        /** Reads arrays as Object[], just like {@link JsonArray#read(JsonReader)} does. */
+        private Object[] readArray() {
+            return readObjects(new Object[length(getVarint())], 0);
+        }
+
+        /** @return the long as int if it fits into it, the same as the text form of it is read. */
+        private Object readLong() {
+            long value = unzigzag(getVarint());
+            if (value == (int) value) return (int) value;
+
+            return value;
+        }
+
+        /** @return the float as the double that its text form is read as, which has the same decimal digits and not the same bits. */
+        private Double readFloat() {
+            return Double.parseDouble(Float.toString(Float.intBitsToFloat(order(buffer.getInt()))));
+        }
+
+        private Object[] readObjects(Object[] array, int start) {
+            for (int i = start; i < array.length; i++)
+                array[i] = readAs();
+
+            return array;
+        }
+
+        private String readKey() {
+            long header = getVarint();
+            if ((header & 1) == 1) {
+                String key = readString(length(header >>> 1));
+                keys.add(key);
+                return key;
+            }
+
+            if (header >>> 1 >= keys.size()) throw new RuntimeException("Unknown key id!");
+            return keys.get((int) (header >>> 1));
+        }
+
+        private String readString(int bytes) {
+            if (buffer.remaining() < bytes) throw new RuntimeException("Unexpected end of json!");
+
+            int start = buffer.position(), end = start + bytes;
+            boolean ascii = true;
+            for (int i = start; i < end && ascii; i++) ascii = buffer.get(i) >= 0;
+
+            if (ascii && buffer.hasArray()) {
+                buffer.position(end);
+                return new String(buffer.array(), buffer.arrayOffset() + start, bytes, StandardCharsets.ISO_8859_1);
+            }
+
+            if (chars.length < bytes) chars = new char[Math.max(bytes, chars.length * 2)];
+
+            int length = 0;
+            while (buffer.position() < end) {
+                int next = buffer.get() & 0xFF;
+                if (next < 0x80) chars[length++] = (char) next;
+                else if (next < 0xE0) chars[length++] = (char) ((next & 0x1F) << 6 | buffer.get() & 0x3F);
+                else if (next < 0xF0) chars[length++] = (char) ((next & 0x0F) << 12 | (buffer.get() & 0x3F) << 6 | buffer.get() & 0x3F);
+                else {
+                    int code = (next & 0x07) << 18 | (buffer.get() & 0x3F) << 12 | (buffer.get() & 0x3F) << 6 | buffer.get() & 0x3F;
+                    chars[length++] = Character.highSurrogate(code);
+                    chars[length++] = Character.lowSurrogate(code);
+                }
+            }
+
+            return new String(chars, 0, length);
+        }
+
+        private long getVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte next = buffer.get();
+                value |= (long) (next & 0x7F) << shift;
+                if (next >= 0) return value;
+            }
+            throw new RuntimeException("Malformed varint!");
+        }
+
+        private int length(long length) {
+            if (length < 0 || length > buffer.remaining()) throw new RuntimeException("Malformed length!");
+            return (int) length;
+        }
+
+        private int order(int bits) {
+            return buffer.order() == ByteOrder.BIG_ENDIAN ? bits : Integer.reverseBytes(bits);
+        }
+
+        private long order(long bits) {
+            return buffer.order() == ByteOrder.BIG_ENDIAN ? bits : Long.reverseBytes(bits);
+        }
+
+        private static long unzigzag(long value) {
+            return value >>> 1 ^ -(value & 1);
+        }
+    }
+}
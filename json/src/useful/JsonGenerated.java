@@ -0,0 +1,20 @@
+package useful;
+
+import useful.Json.JsonSerializer;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class for which {@link JsonProcessor} generates a {@link JsonSerializer} at compile time.
+ * The generated serializer is found by {@link JsonSerializator} the first time the class is serialized and works without reflection.
+ * Public non-static non-final fields are serialized, just as they are through reflection.
+ * A serializer added for the class itself via {@link JsonSerializator#addSerializer} is used instead, serializers added for its supertypes are not.
+ *
+ * @author xzxADIxzx
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface JsonGenerated {}
@@ -0,0 +1,246 @@
+package useful;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads newline-delimited json, one {@link Json} per line, reusing the same buffers for all of the lines.
+ * Blank lines are skipped, nested objects are deserialized via {@link JsonSerializator} just like in {@link Json#read(String)}.
+ *
+ * @author xzxADIxzx
+ */
+public class JsonLineReader implements Iterator<Json>, Iterable<Json>, Closeable {
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final ReadableByteChannel channel;
+
+    /** Bytes read from the channel, the unread ones are between its position and limit. */
+    private ByteBuffer bytes = ByteBuffer.allocate(1 << 16).flip();
+    private char[] chars = new char[1024];
+
+    /** Keys are interned across all of the lines. */
+    private final JsonSymbols symbols = JsonSymbols.shared == null ? new JsonSymbols() : JsonSymbols.shared;
+
+    /** Offset in the source of the first byte in {@link #bytes}. */
+    private long offset;
+    /** Length of the next line including its line break or -1 if it is not found yet. */
+    private int line = -1;
+    private boolean ended;
+
+    public JsonLineReader(InputStream stream) {
+        this(Channels.newChannel(stream));
+    }
+
+    public JsonLineReader(Path path) {
+        this(open(path));
+    }
+
+    /** Reads lines starting at the current position of the channel, offsets are counted from the beginning of seekable channels. */
+    public JsonLineReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        try {
+            if (channel instanceof SeekableByteChannel seekable) offset = seekable.position();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // region read
+
+    /** @return whether there is one more non-blank line. */
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            if (line == -1 && !findLine()) return false;
+            if (!blank()) return true;
+
+            consume(); // blank lines are skipped
+        }
+    }
+
+    /** @return {@link Json} read from the next non-blank line. */
+    @Override
+    public Json next() {
+        if (!hasNext()) throw new NoSuchElementException();
+
+        int length = decode();
+        consume();
+
+        JsonReader reader = new JsonReader(chars, 0, length).symbols(symbols);
+        Json result = Json.read(reader);
+
+        reader.finish();
+        return result;
+    }
+
+    /** Skips the next line without parsing it. @return whether there was a line to skip. */
+    public boolean skip() {
+        if (!hasNext()) return false;
+
+        consume();
+        return true;
+    }
+
+    /** @return offset in bytes of the line that will be read next, it can be passed to {@link #seek(long)} later to continue from it. */
+    public long position() {
+        return offset + bytes.position();
+    }
+
+    /**
+     * Continues reading from the given offset in bytes, which should be the beginning of a line.
+     * Channels that are not seekable, such as streams, can only move forward.
+     */
+    public void seek(long position) {
+        try {
+            if (channel instanceof SeekableByteChannel seekable) {
+                seekable.position(position);
+
+                offset = position;
+                bytes.clear().flip();
+            } else {
+                if (position < position()) throw new IllegalArgumentException("Stream can not move backward!");
+
+                long skip = position - position();
+                while (skip > bytes.remaining()) {
+                    skip -= bytes.remaining();
+                    offset += bytes.limit();
+
+                    bytes.clear().flip();
+                    if (!fill()) throw new IllegalArgumentException("Position is beyond the end of the stream!");
+                }
+
+                bytes.position(bytes.position() + (int) skip);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        line = -1;
+        ended = false;
+    }
+
+    // endregion
+
+    @Override
+    public Iterator<Json> iterator() {
+        return this;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Searches for the end of the next line reading more bytes if needed. @return whether there is one more line. */
+    private boolean findLine() {
+        int start = bytes.position(), searched = start;
+        while (true) {
+            for (int i = searched; i < bytes.limit(); i++) {
+                if (bytes.get(i) == '\n') {
+                    line = i + 1 - start;
+                    return true;
+                }
+            }
+
+            if (ended) {
+                // the last line may have no line break
+                if (bytes.position() == bytes.limit()) return false;
+
+                line = bytes.remaining();
+                return true;
+            }
+
+            searched = bytes.limit() - start;
+            compact();
+            if (!fill()) ended = true;
+
+            start = bytes.position();
+            searched += start;
+        }
+    }
+
+    /** Moves the unread bytes to the beginning of the buffer, growing it if the line does not fit. */
+    private void compact() {
+        if (bytes.position() == 0 && bytes.limit() == bytes.capacity()) {
+            bytes = ByteBuffer.allocate(bytes.capacity() * 2).put(bytes).flip();
+            return;
+        }
+
+        offset += bytes.position();
+        bytes.compact().flip();
+    }
+
+    /** Reads more bytes after the unread ones. @return whether anything was read. */
+    private boolean fill() {
+        int position = bytes.position(), limit = bytes.limit();
+        bytes.position(limit).limit(bytes.capacity());
+
+        try {
+            int read;
+            do read = channel.read(bytes); while (read == 0);
+
+            bytes.limit(bytes.position()).position(position);
+            return read > 0;
+        } catch (IOException e) {
+            bytes.limit(limit).position(position);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean blank() {
+        for (int i = bytes.position(); i < bytes.position() + line; i++) {
+            byte next = bytes.get(i);
+            if (next != ' ' && next != '\n' && next != '\r' && next != '\t') return false;
+        }
+        return true;
+    }
+
+    /** Decodes the next line into {@link #chars}. @return number of decoded characters. */
+    private int decode() {
+        if (chars.length < line) chars = new char[Math.max(line, chars.length * 2)];
+
+        ByteBuffer source = bytes.slice(bytes.position(), line);
+        CharBuffer target = CharBuffer.wrap(chars);
+
+        decoder.reset();
+        decoder.decode(source, target, true);
+        decoder.flush(target);
+
+        return target.position();
+    }
+
+    private void consume() {
+        bytes.position(bytes.position() + line);
+        line = -1;
+    }
+
+    private static FileChannel open(Path path) {
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
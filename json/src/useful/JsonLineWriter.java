@@ -0,0 +1,115 @@
+package useful;
+
+import useful.Json.JsonStyle;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes newline-delimited json, one compact value per line.
+ * Lines are collected in a buffer that is written to the channel only when it is full or on {@link #flush()}.
+ *
+ * @author xzxADIxzx
+ */
+public class JsonLineWriter implements Closeable, Flushable {
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer bytes;
+
+    private final StringBuilder line = new StringBuilder();
+    private final JsonWriter writer = new JsonWriter(line, JsonStyle.compact);
+
+    public JsonLineWriter(OutputStream stream) {
+        this(Channels.newChannel(stream));
+    }
+
+    /** Appends lines to the end of the file, creating it if needed. */
+    public JsonLineWriter(Path path) {
+        this(open(path));
+    }
+
+    public JsonLineWriter(WritableByteChannel channel) {
+        this(channel, 1 << 16);
+    }
+
+    /** @param capacity number of bytes collected before they are written to the channel. */
+    public JsonLineWriter(WritableByteChannel channel, int capacity) {
+        this.channel = channel;
+        this.bytes = ByteBuffer.allocate(capacity);
+    }
+
+    /** Writes any value that can be serialized by {@link JsonSerializator} as a single line. */
+    public void write(Object value) {
+        line.setLength(0);
+        writer.write(value);
+
+        // line breaks can only come from the formatting of lazy sections as strings escape them
+        for (int i = 0; i < line.length(); i++)
+            if (line.charAt(i) == '\n' || line.charAt(i) == '\r') line.setCharAt(i, ' ');
+
+        line.append('\n');
+
+        CharBuffer chars = CharBuffer.wrap(line);
+        encoder.reset();
+
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, true);
+            if (result.isUnderflow()) result = encoder.flush(bytes);
+
+            if (result.isUnderflow()) break;
+            drain(); // the buffer is full
+        }
+    }
+
+    /** Writes all collected lines to the channel. */
+    @Override
+    public void flush() {
+        drain();
+    }
+
+    @Override
+    public void close() {
+        try (channel) {
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void drain() {
+        bytes.flip();
+        try {
+            while (bytes.hasRemaining()) channel.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            bytes.compact();
+        }
+    }
+
+    private static FileChannel open(Path path) {
+        try {
+            return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package useful;
+
+import useful.JsonReader.Token;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled path to values inside of a json, such as {@code players[42].stats.kills} or {@code players[*].uuid}.
+ * Values are matched while the json is being read, everything that does not match is skipped without being parsed.
+ * Names are separated by dots or written in brackets with quotes, indices are written in brackets and {@code *} matches any name or index.
+ *
+ * @author xzxADIxzx
+ */
+public class JsonPath {
+
+    /** Names and indices of the segments, a segment with neither of them is a wildcard. */
+    private final String[] names;
+    private final int[] indices;
+
+    private final String path;
+
+    private JsonPath(String path, String[] names, int[] indices) {
+        this.path = path;
+        this.names = names;
+        this.indices = indices;
+    }
+
+    /** @return a path parsed from the given string, it may start with {@code $} that stands for the root. */
+    public static JsonPath compile(String path) {
+        ArrayList<String> names = new ArrayList<>();
+        ArrayList<Integer> indices = new ArrayList<>();
+
+        int i = path.startsWith("$") ? 1 : 0;
+        while (i < path.length()) {
+            if (path.charAt(i) == '[') {
+                int end = path.indexOf(']', i);
+                if (end == -1) throw new RuntimeException("Malformed json path " + path + "!");
+
+                String segment = path.substring(i + 1, end).trim();
+                char quote = segment.isEmpty() ? 0 : segment.charAt(0);
+
+                if (segment.equals("*")) {
+                    names.add(null);
+                    indices.add(-1);
+                } else if ((quote == '\'' || quote == '"') && segment.length() >= 2 && segment.charAt(segment.length() - 1) == quote) {
+                    names.add(segment.substring(1, segment.length() - 1));
+                    indices.add(-1);
+                } else {
+                    names.add(null);
+                    indices.add(index(path, segment));
+                }
+
+                i = end + 1;
+                continue;
+            }
+
+            if (path.charAt(i) == '.') i++;
+            else if (!names.isEmpty()) throw new RuntimeException("Malformed json path " + path + "!"); // names must be separated by dots
+
+            int end = i;
+            while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') end++;
+            if (end == i) throw new RuntimeException("Malformed json path " + path + "!");
+
+            String segment = path.substring(i, end);
+            names.add(segment.equals("*") ? null : segment);
+            indices.add(-1);
+
+            i = end;
+        }
+
+        return new JsonPath(path, names.toArray(new String[0]), indices.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    // region read
+
+    /** @return all values that match the path, objects are deserialized via {@link JsonSerializator}. */
+    public List<Object> read(String json) {
+        JsonReader reader = new JsonReader(json);
+        List<Object> result = read(reader);
+
+        reader.finish();
+        return result;
+    }
+
+    /** @return all values that match the path in the UTF-8 file, see {@link JsonReader#JsonReader(FileChannel)}. */
+    public List<Object> read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            JsonReader reader = new JsonReader(channel);
+            List<Object> result = read(reader);
+
+            reader.finish();
+            return result;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** @return all values that match the path in the next value of the reader. */
+    public List<Object> read(JsonReader reader) {
+        List<Object> result = new ArrayList<>();
+        match(reader, 0, result, false);
+        return result;
+    }
+
+    /** @return the first value that matches the path or null if there is no such value, the rest of the json is not even read. */
+    public Object readFirst(String json) {
+        return readFirst(new JsonReader(json));
+    }
+
+    /** @return the first value that matches the path or null, the reader is left right after it and must not be used anymore. */
+    public Object readFirst(JsonReader reader) {
+        List<Object> result = new ArrayList<>(1);
+        match(reader, 0, result, true);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    // endregion
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    /** Reads the matching values and skips the rest. @return whether the search is over because only the first value is needed. */
+    private boolean match(JsonReader reader, int depth, List<Object> result, boolean first) {
+        if (depth == names.length) {
+            result.add(Json.readAs(reader));
+            return first;
+        }
+
+        String name = names[depth];
+        int index = indices[depth];
+
+        Token token = reader.nextToken();
+        if (token == Token.beginJson && index == -1) {
+            reader.beginJson();
+            while (reader.hasNext()) {
+                if (name == null ? reader.nextName() != null : reader.nextNameEquals(name)) {
+                    if (match(reader, depth + 1, result, first)) return true;
+                } else reader.skipValue();
+            }
+            reader.endJson();
+        } else if (token == Token.beginArray && name == null) {
+            reader.beginArray();
+            for (int i = 0; reader.hasNext(); i++) {
+                if (index == -1 || index == i) {
+                    if (match(reader, depth + 1, result, first)) return true;
+                } else reader.skipValue();
+            }
+            reader.endArray();
+        } else reader.skipValue();
+
+        return false;
+    }
+
+    private static int index(String path, String segment) {
+        try {
+            int index = Integer.parseInt(segment);
+            if (index >= 0) return index;
+        } catch (NumberFormatException ignored) {}
+
+        throw new RuntimeException("Malformed json path " + path + "!");
+    }
+}
@@ -0,0 +1,156 @@
+package useful;
+
+import useful.Json.JsonSerializer;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Generates a {@link JsonSerializer} for each class annotated with {@link JsonGenerated}.
+ * Add the json module to the annotation processor path to enable it.
+ *
+ * @author xzxADIxzx
+ */
+@SupportedAnnotationTypes("useful.JsonGenerated")
+public class JsonProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (Element element : round.getElementsAnnotatedWith(JsonGenerated.class)) {
+            if (element.getKind() != ElementKind.CLASS) error("Only classes can be annotated with @JsonGenerated!", element);
+            else if (element.getModifiers().contains(Modifier.PRIVATE)) error("Classes annotated with @JsonGenerated must not be private!", element);
+            else if (((TypeElement) element).getNestingKind() == NestingKind.MEMBER && !element.getModifiers().contains(Modifier.STATIC)) error("Nested classes annotated with @JsonGenerated must be static!", element);
+            else if (((TypeElement) element).getNestingKind().isNested() && ((TypeElement) element).getNestingKind() != NestingKind.MEMBER) error("Local classes can not be annotated with @JsonGenerated!", element);
+            else generate((TypeElement) element);
+        }
+
+        return true;
+    }
+
+    private void generate(TypeElement type) {
+        String pkg = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String generated = JsonSerializator.generatedName(processingEnv.getElementUtils().getBinaryName(type).toString());
+        String simple = generated.substring(generated.lastIndexOf('.') + 1);
+        String name = processingEnv.getTypeUtils().erasure(type.asType()).toString();
+
+        StringBuilder builder = new StringBuilder();
+        if (!pkg.isEmpty()) builder.append("package ").append(pkg).append(";\n\n");
+
+        builder.append("import useful.Json;\n");
+        builder.append("import useful.Json.JsonSerializer;\n\n");
+        builder.append("/** Generated by {@link useful.JsonProcessor} for {@link ").append(name).append("}, do not edit. */\n");
+        builder.append("@SuppressWarnings({\"unchecked\", \"rawtypes\", \"cast\"})\n");
+        builder.append("public class ").append(simple).append(" implements JsonSerializer<").append(name).append("> {\n\n");
+
+        ArrayList<VariableElement> fields = fields(type);
+
+        builder.append("    @Override\n");
+        builder.append("    public Json write(").append(name).append(" object) {\n");
+        builder.append("        Json json = new Json(").append(name).append(".class);\n");
+        for (VariableElement field : fields) {
+            String value = "object." + field.getSimpleName();
+            if (field.asType().getKind() == TypeKind.CHAR) value = "String.valueOf(" + value + ")"; // chars are written as strings to be readable back
+
+            builder.append("        json.put(\"").append(field.getSimpleName()).append("\", ").append(value).append(");\n");
+        }
+        builder.append("        return json;\n");
+        builder.append("    }\n\n");
+
+        builder.append("    @Override\n");
+        builder.append("    public void read(").append(name).append(" object, Json json) {\n");
+        if (!fields.isEmpty()) builder.append("        Object value;\n");
+        for (VariableElement field : fields) {
+            builder.append("\n        value = json.get(\"").append(field.getSimpleName()).append("\");\n");
+            builder.append("        ").append(read(field.getSimpleName().toString(), field.asType())).append("\n");
+        }
+        builder.append("    }\n");
+        builder.append("}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(generated, type).openWriter()) {
+            writer.write(builder.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** @return the same fields as {@link Class#getFields()} returns for the serializable ones, the class goes before its superclasses. */
+    private ArrayList<VariableElement> fields(TypeElement type) {
+        ArrayList<VariableElement> fields = new ArrayList<>();
+        HashSet<String> names = new HashSet<>();
+
+        while (type != null) {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.PUBLIC) && !modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.FINAL) && names.add(field.getSimpleName().toString()))
+                    fields.add(field);
+            }
+
+            TypeMirror parent = type.getSuperclass();
+            type = parent.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) parent).asElement() : null;
+        }
+
+        return fields;
+    }
+
+    /** @return a statement that assigns the value to the field, converting numbers between types as they may be read as any of them. */
+    private String read(String name, TypeMirror type) {
+        String field = "object." + name;
+        return switch (type.getKind()) {
+            case INT, LONG, FLOAT, DOUBLE, SHORT, BYTE -> "if (value instanceof Number number) " + field + " = number." + type.getKind().name().toLowerCase() + "Value();";
+            case BOOLEAN -> "if (value instanceof Boolean bool) " + field + " = bool;";
+            case CHAR -> "if (value instanceof String string && !string.isEmpty()) " + field + " = string.charAt(0);";
+            case ARRAY -> {
+                // arrays are read as Object[], so they are converted and copied into the existing arrays if possible
+                String erasure = processingEnv.getTypeUtils().erasure(type).toString();
+                yield "if (value == null || value.getClass().isArray()) " + field + " = (" + erasure + ") json.getArray(\"" + name + "\", " + erasure + ".class, " + field + ");";
+            }
+            default -> {
+                String erasure = processingEnv.getTypeUtils().erasure(type).toString();
+                yield switch (erasure) {
+                    case "java.lang.Integer", "java.lang.Long", "java.lang.Float", "java.lang.Double", "java.lang.Short", "java.lang.Byte" ->
+                            field + " = value instanceof Number number ? " + erasure + ".valueOf(number." + primitive(erasure) + "Value()) : null;";
+                    case "java.lang.String" -> "if (value == null || value instanceof String) " + field + " = (String) value;";
+                    case "java.lang.Object" -> field + " = Json.serializator.merge(" + field + ", value);";
+                    // nested objects can be left as json to be read into the existing ones, jsons and arrays of the json are copied as it may be reused
+                    default -> "value = Json.serializator.merge(" + field + ", value);\n" +
+                            "        if (value == null || value instanceof " + erasure + ") " + field + " = (" + erasure + ") value;";
+                };
+            }
+        };
+    }
+
+    private static String primitive(String boxed) {
+        return switch (boxed) {
+            case "java.lang.Integer" -> "int";
+            default -> boxed.substring(boxed.lastIndexOf('.') + 1).toLowerCase();
+        };
+    }
+
+    private void error(String message, Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
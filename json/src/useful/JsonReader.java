@@ -0,0 +1,850 @@
+package useful;
+
+import useful.Json.JsonSection;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Pull parser that reads json token by token without building a {@link Json} tree.
+ * Works over characters in memory or over a {@link Reader} that is read in small portions.
+ *
+ * @author xzxADIxzx
+ */
+public class JsonReader implements Closeable {
+
+    /** Kinds of numbers returned by {@link #readNumber()}. */
+    static final int invalid = 0, intNumber = 1, longNumber = 2, doubleNumber = 3;
+
+    /** Powers of ten that are represented exactly. */
+    private static final float[] floatPowers = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+    private static final double[] doublePowers = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private static final int emptyArray = 0, filledArray = 1, emptyJson = 2, danglingName = 3, filledJson = 4, emptyDocument = 5, filledDocument = 6;
+
+    /** Source of characters or null if all of them are already in the buffer. */
+    private final Reader reader;
+
+    private char[] buffer;
+    private int pos, limit;
+
+    /** Number of characters discarded from the beginning of the buffer. */
+    private long offset;
+
+    private int[] stack = new int[32];
+    private int depth;
+
+    /** Type of the next token or null if it is not read yet. */
+    private Token peeked;
+    /** Length of the peeked number, boolean or null. */
+    private int peekedLength;
+
+    /** Table of canonical keys, see {@link JsonSymbols#shared}. */
+    private JsonSymbols symbols = JsonSymbols.shared;
+
+    /** Digits and power of ten of the last scanned number, see {@link #readNumber()}. */
+    private long mantissa;
+    private int exponent, numberStart;
+    private boolean negative, precise;
+
+    public JsonReader(CharSequence source) {
+        this(source.toString().toCharArray());
+    }
+
+    public JsonReader(char[] source) {
+        this(source, 0, source.length);
+    }
+
+    public JsonReader(char[] source, int start, int end) {
+        this.reader = null;
+        this.buffer = source;
+        this.pos = start;
+        this.limit = end;
+
+        push(emptyDocument);
+    }
+
+    public JsonReader(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[8192];
+
+        push(emptyDocument);
+    }
+
+    /**
+     * Reads UTF-8 text starting at the current position of the channel, which is not closed by this reader.
+     * The file is mapped into memory and decoded in small portions, so the text is never copied as a whole.
+     */
+    public JsonReader(FileChannel channel) {
+        this(new MappedReader(channel));
+    }
+
+    /** Uses the given table of canonical keys instead of {@link JsonSymbols#shared}, null to create a new one on the first name. */
+    public JsonReader symbols(JsonSymbols symbols) {
+        this.symbols = symbols;
+        return this;
+    }
+
+    // region tokens
+
+    /** @return type of the next token without consuming it. */
+    public Token nextToken() {
+        if (peeked == null) peeked = peek();
+        return peeked;
+    }
+
+    /** @return whether the current json or array has more elements. */
+    public boolean hasNext() {
+        Token token = nextToken();
+        return token != Token.endJson && token != Token.endArray && token != Token.end;
+    }
+
+    public void beginJson() {
+        expect(Token.beginJson, "Json must be enclosed in curly braces!");
+        push(emptyJson);
+    }
+
+    public void endJson() {
+        expect(Token.endJson, "Json must be enclosed in curly braces!");
+        depth--;
+    }
+
+    public void beginArray() {
+        expect(Token.beginArray, "Array must be enclosed in square brackets!");
+        push(emptyArray);
+    }
+
+    public void endArray() {
+        expect(Token.endArray, "Array must be enclosed in square brackets!");
+        depth--;
+    }
+
+    /** @return the next name, short names are interned via {@link JsonSymbols}. */
+    public String nextName() {
+        expect(Token.name, "Json keys must be strings!");
+        return readName();
+    }
+
+    /** @return the next name, the candidate itself is returned if it is equal to the name so that no new string is created. */
+    String nextName(String candidate) {
+        if (candidate == null) return nextName();
+        expect(Token.name, "Json keys must be strings!");
+
+        int length = candidate.length();
+        if (limit - pos > length && buffer[pos + length] == '"') {
+            int i = 0;
+            for (char next; i < length && (next = buffer[pos + i]) == candidate.charAt(i) && next != '"' && next != '\\'; i++);
+
+            if (i == length) {
+                pos += length + 1;
+                return candidate;
+            }
+        }
+
+        return readName();
+    }
+
+    /** Consumes the next name and compares it with the given one, in place if it is already in the buffer and has no escape sequences. */
+    boolean nextNameEquals(String name) {
+        expect(Token.name, "Json keys must be strings!");
+
+        int length = name.length();
+        if (limit - pos <= length) return readString().equals(name);
+
+        for (int i = 0; i < length; i++) {
+            char next = buffer[pos + i];
+            if (next == '\\') return readString().equals(name);
+            if (next == '"') {
+                pos += i + 1; // the name is shorter
+                return false;
+            }
+
+            if (next != name.charAt(i)) {
+                skipString();
+                return false;
+            }
+        }
+
+        if (buffer[pos + length] == '"') {
+            pos += length + 1;
+            return true;
+        }
+
+        skipString();
+        return false;
+    }
+
+    public String nextString() {
+        expect(Token.string, "Expected a string!");
+        return readString();
+    }
+
+    public boolean nextBoolean() {
+        expect(Token.bool, "Expected a boolean!");
+        boolean result = buffer[pos] == 't';
+
+        pos += peekedLength;
+        return result;
+    }
+
+    public void nextNull() {
+        expect(Token.nil, "Expected null!");
+        pos += peekedLength;
+    }
+
+    /**
+     * @return the next number as {@link Integer} or {@link Long} if it has no fraction and fits into them,
+     * otherwise as {@link Double}, so that fractions keep all of their digits no matter the type of the field they are read into.
+     */
+    public Object nextNumber() {
+        return number(readNumber());
+    }
+
+    public int nextInt() {
+        if (readNumber() != intNumber) throw new RuntimeException("Expected an int!");
+        return (int) mantissa;
+    }
+
+    public long nextLong() {
+        int kind = readNumber();
+        if (kind != intNumber && kind != longNumber) throw new RuntimeException("Expected a long!");
+        return mantissa;
+    }
+
+    public float nextFloat() {
+        return switch (readNumber()) {
+            case intNumber, longNumber -> (float) mantissa;
+            case doubleNumber -> floatValue();
+            default -> throw new RuntimeException("Expected a float!");
+        };
+    }
+
+    public double nextDouble() {
+        return switch (readNumber()) {
+            case intNumber, longNumber -> (double) mantissa;
+            case doubleNumber -> doubleValue();
+            default -> throw new RuntimeException("Expected a double!");
+        };
+    }
+
+    public int[] nextIntArray() {
+        beginArray();
+        int[] result = new int[16];
+        int size = 0;
+
+        while (hasNext()) {
+            if (size == result.length) result = Arrays.copyOf(result, size * 2);
+            result[size++] = nextInt();
+        }
+
+        endArray();
+        return Arrays.copyOf(result, size);
+    }
+
+    public long[] nextLongArray() {
+        beginArray();
+        long[] result = new long[16];
+        int size = 0;
+
+        while (hasNext()) {
+            if (size == result.length) result = Arrays.copyOf(result, size * 2);
+            result[size++] = nextLong();
+        }
+
+        endArray();
+        return Arrays.copyOf(result, size);
+    }
+
+    public float[] nextFloatArray() {
+        beginArray();
+        float[] result = new float[16];
+        int size = 0;
+
+        while (hasNext()) {
+            if (size == result.length) result = Arrays.copyOf(result, size * 2);
+            result[size++] = nextFloat();
+        }
+
+        endArray();
+        return Arrays.copyOf(result, size);
+    }
+
+    public double[] nextDoubleArray() {
+        beginArray();
+        double[] result = new double[16];
+        int size = 0;
+
+        while (hasNext()) {
+            if (size == result.length) result = Arrays.copyOf(result, size * 2);
+            result[size++] = nextDouble();
+        }
+
+        endArray();
+        return Arrays.copyOf(result, size);
+    }
+
+    public boolean[] nextBooleanArray() {
+        beginArray();
+        boolean[] result = new boolean[16];
+        int size = 0;
+
+        while (hasNext()) {
+            if (size == result.length) result = Arrays.copyOf(result, size * 2);
+            result[size++] = nextBoolean();
+        }
+
+        endArray();
+        return Arrays.copyOf(result, size);
+    }
+
+    /** Skips the next value including all nested values. If the next token is a name, skips it along with its value. */
+    public void skipValue() {
+        Token token = nextToken();
+        if (token == Token.endJson || token == Token.endArray || token == Token.end) throw new RuntimeException("Nothing to skip!");
+
+        if (token == Token.name) {
+            peeked = null;
+            skipString();
+        }
+
+        int count = 0;
+        do {
+            switch (nextToken()) {
+                case beginJson -> {
+                    beginJson();
+                    count++;
+                }
+                case beginArray -> {
+                    beginArray();
+                    count++;
+                }
+                case endJson -> {
+                    endJson();
+                    count--;
+                }
+                case endArray -> {
+                    endArray();
+                    count--;
+                }
+                case name, string -> {
+                    peeked = null;
+                    skipString();
+                }
+                case number, bool, nil -> {
+                    peeked = null;
+                    pos += peekedLength;
+                }
+                case end -> throw new RuntimeException("Unexpected end of json!");
+            }
+        } while (count > 0);
+    }
+
+    /** Skips the next json or array and returns its characters to be read later, only works over characters in memory. */
+    JsonSection nextSection() {
+        if (reader != null) throw new IllegalStateException("Lazy reading requires characters in memory!");
+
+        Token token = nextToken();
+        if (token != Token.beginJson && token != Token.beginArray) throw new RuntimeException("Expected a json or an array!");
+
+        int start = pos - 1; // the bracket is already consumed
+        skipValue();
+
+        return new JsonSection(buffer, start, pos);
+    }
+
+    /** Makes sure that only spaces are left after the read value. */
+    public void finish() {
+        if (nextToken() != Token.end) throw new RuntimeException("Unexpected characters after the end of json!");
+    }
+
+    /** @return number of characters consumed from the beginning of the source. */
+    public long position() {
+        return offset + pos;
+    }
+
+    @Override
+    public void close() {
+        if (reader == null) return;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // endregion
+    // region lexer
+
+    private Token peek() {
+        int scope = stack[depth - 1];
+        switch (scope) {
+            case emptyArray, filledArray -> {
+                stack[depth - 1] = filledArray;
+
+                int next = nextNonSpace();
+                if (next == ']') {
+                    pos++;
+                    return Token.endArray;
+                }
+
+                if (scope == filledArray) {
+                    if (next != ',') throw new RuntimeException("Array must be enclosed in square brackets!");
+                    pos++;
+                }
+            }
+            case emptyJson, filledJson -> {
+                stack[depth - 1] = danglingName;
+
+                int next = nextNonSpace();
+                if (next == '}') {
+                    pos++;
+                    return Token.endJson;
+                }
+
+                if (scope == filledJson) {
+                    if (next != ',') throw new RuntimeException("Json must be enclosed in curly braces!");
+                    pos++;
+                    next = nextNonSpace();
+                }
+
+                if (next == -1) throw new RuntimeException("Unexpected end of json!");
+                if (next != '"') throw new RuntimeException("Json keys must be strings!");
+
+                pos++;
+                return Token.name;
+            }
+            case danglingName -> {
+                stack[depth - 1] = filledJson;
+
+                if (nextNonSpace() != ':') throw new RuntimeException("Missing colon after key!");
+                pos++;
+            }
+            case emptyDocument -> stack[depth - 1] = filledDocument;
+            case filledDocument -> {
+                if (nextNonSpace() == -1) return Token.end;
+                throw new RuntimeException("Unexpected characters after the end of json!");
+            }
+        }
+
+        return peekValue();
+    }
+
+    private Token peekValue() {
+        switch (nextNonSpace()) {
+            case '{' -> {
+                pos++;
+                return Token.beginJson;
+            }
+            case '[' -> {
+                pos++;
+                return Token.beginArray;
+            }
+            case '"' -> {
+                pos++;
+                return Token.string;
+            }
+            case -1 -> throw new RuntimeException("Unexpected end of json!");
+        }
+
+        peekedLength = literalLength();
+        if (peekedLength == 0) throw new RuntimeException("Unexpected character " + buffer[pos] + "!");
+
+        if (matches("null")) return Token.nil;
+        if (matches("true") || matches("false")) return Token.bool;
+
+        return Token.number;
+    }
+
+    private void expect(Token token, String message) {
+        if (nextToken() != token) throw new RuntimeException(message);
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+        stack[depth++] = scope;
+    }
+
+    /** @return the next non-space character without consuming it or -1 if the end is reached. */
+    private int nextNonSpace() {
+        while (pos < limit || fill(1)) {
+            char next = buffer[pos];
+            if (next != ' ' && next != '\n' && next != '\r' && next != '\t') return next;
+            pos++;
+        }
+        return -1;
+    }
+
+    /** @return length of the boolean, number or null that starts at the current position. */
+    private int literalLength() {
+        int length = 0;
+        while (pos + length < limit || fill(length + 1)) {
+            if (delimiter(buffer[pos + length])) break;
+            length++;
+        }
+        return length;
+    }
+
+    private boolean matches(String literal) {
+        return matches(pos, pos + peekedLength, literal);
+    }
+
+    /**
+     * Scans the next number in a single pass without throwing exceptions on malformed input.
+     * Integers are stored in {@link #mantissa}, fractions are stored as {@link #mantissa} multiplied by 10 to the power of {@link #exponent}.
+     * @return the kind of the number.
+     */
+    int readNumber() {
+        expect(Token.number, "Expected a number!");
+
+        numberStart = pos;
+        int i = pos, end = pos + peekedLength;
+        pos = end;
+
+        negative = buffer[i] == '-';
+        if (negative || buffer[i] == '+') i++;
+
+        if (matches(i, end, "NaN") || matches(i, end, "Infinity")) {
+            precise = false;
+            return doubleNumber;
+        }
+
+        // digits are accumulated as a negative number like Long.parseLong does to fit Long.MIN_VALUE
+        long value = 0;
+        int dropped = 0, fraction = 0;
+        boolean integer = true, overflow = false;
+
+        int start = i;
+        for (; i < end && digit(buffer[i]); i++) {
+            int digit = buffer[i] - '0';
+            if (value == 0 && digit == 0) continue; // leading zeros
+
+            if (!overflow && (value < Long.MIN_VALUE / 10 || value * 10 < Long.MIN_VALUE + digit)) overflow = true;
+
+            if (overflow) dropped++;
+            else value = value * 10 - digit;
+        }
+
+        int scanned = i - start;
+        if (i < end && buffer[i] == '.') {
+            integer = false;
+            start = ++i;
+
+            for (; i < end && digit(buffer[i]); i++) {
+                int digit = buffer[i] - '0';
+                if (value == 0 && digit == 0) {
+                    fraction++; // leading zeros only move the point
+                    continue;
+                }
+
+                if (!overflow && (value < Long.MIN_VALUE / 10 || value * 10 < Long.MIN_VALUE + digit)) overflow = true;
+
+                if (!overflow) {
+                    value = value * 10 - digit;
+                    fraction++;
+                }
+            }
+
+            scanned += i - start;
+        }
+
+        if (scanned == 0) return invalid; // at least one digit is required
+
+        int power = 0;
+        if (i < end && (buffer[i] == 'e' || buffer[i] == 'E')) {
+            integer = false;
+            i++;
+
+            boolean negativePower = i < end && buffer[i] == '-';
+            if (i < end && (buffer[i] == '-' || buffer[i] == '+')) i++;
+
+            start = i;
+            while (i < end && digit(buffer[i])) {
+                if (power < 100000) power = power * 10 + buffer[i] - '0';
+                i++;
+            }
+
+            if (i == start) return invalid;
+            if (negativePower) power = -power;
+        }
+
+        if (i != end) return invalid;
+
+        if (integer && !overflow && (negative || value != Long.MIN_VALUE)) {
+            mantissa = negative ? value : -value;
+            return mantissa == (int) mantissa ? intNumber : longNumber;
+        }
+
+        precise = !overflow && value != Long.MIN_VALUE; // the absolute value of Long.MIN_VALUE does not fit into long
+        if (integer) return doubleNumber;
+
+        // trailing zeros are not significant
+        while (precise && value != 0 && value % 10 == 0) {
+            value /= 10;
+            power++;
+        }
+
+        mantissa = -value;
+        exponent = power + dropped - fraction;
+
+        return doubleNumber;
+    }
+
+    /** @return the last scanned number boxed according to its kind. */
+    Object number(int kind) {
+        return switch (kind) {
+            case intNumber -> Integer.valueOf((int) mantissa);
+            case longNumber -> Long.valueOf(mantissa);
+            case doubleNumber -> Double.valueOf(doubleValue());
+            default -> throw new RuntimeException("Unknown field type!");
+        };
+    }
+
+    /** @return the last scanned integer, see {@link #readNumber()}. */
+    long longValue() {
+        return mantissa;
+    }
+
+    /** @return the scanned fraction as float, correctly rounded. */
+    float floatValue() {
+        float result;
+        if (precise && mantissa <= 1 << 24 && exponent >= -10 && exponent <= 10)
+            result = exponent < 0 ? mantissa / floatPowers[-exponent] : mantissa * floatPowers[exponent];
+        else return Float.parseFloat(new String(buffer, numberStart, pos - numberStart)); // the number is already validated
+
+        return negative ? -result : result;
+    }
+
+    /** @return the scanned fraction as double, correctly rounded. */
+    double doubleValue() {
+        double result;
+        if (precise && mantissa <= 1L << 53 && exponent >= -22 && exponent <= 22)
+            result = exponent < 0 ? mantissa / doublePowers[-exponent] : mantissa * doublePowers[exponent];
+        else return Double.parseDouble(new String(buffer, numberStart, pos - numberStart)); // the number is already validated
+
+        return negative ? -result : result;
+    }
+
+    private boolean matches(int start, int end, String literal) {
+        if (end - start != literal.length()) return false;
+        for (int i = 0; i < literal.length(); i++)
+            if (buffer[start + i] != literal.charAt(i)) return false;
+        return true;
+    }
+
+    private static boolean digit(char next) {
+        return next >= '0' && next <= '9';
+    }
+
+    /** Reads the rest of a name, looking it up in the symbol table by the hash of its characters in the buffer. */
+    private String readName() {
+        if (symbols == null) symbols = new JsonSymbols(128);
+
+        int hash = 0, end = Math.min(limit, pos + JsonSymbols.maxLength + 1);
+        for (int i = pos; i < end; i++) {
+            char next = buffer[i];
+            if (next == '\\') break;
+            if (next == '"') {
+                String name = symbols.intern(buffer, pos, i, hash);
+                pos = i + 1;
+                return name;
+            }
+
+            hash = 31 * hash + next;
+        }
+
+        // the name has escape sequences, is not entirely in the buffer or is too long
+        String name = readString();
+        return name.length() <= JsonSymbols.maxLength ? symbols.intern(name) : name;
+    }
+
+    /** Reads the rest of a string, copying runs without escape sequences at once. */
+    private String readString() {
+        StringBuilder builder = null;
+        int start = pos;
+
+        while (true) {
+            if (pos == limit) {
+                if (builder == null) builder = new StringBuilder();
+                builder.append(buffer, start, pos - start);
+
+                if (!fill(1)) throw new RuntimeException("Unterminated string!");
+                start = pos;
+            }
+
+            char next = buffer[pos];
+            if (next == '"') {
+                String result = builder == null ? new String(buffer, start, pos - start) : builder.append(buffer, start, pos - start).toString();
+                pos++;
+                return result;
+            }
+
+            if (next != '\\') {
+                pos++;
+                continue;
+            }
+
+            if (builder == null) builder = new StringBuilder(pos - start + 16);
+            builder.append(buffer, start, pos - start);
+
+            if (limit - pos < 6) fill(6); // unicode escapes are the longest, six characters
+            readEscaped(builder);
+            start = pos;
+        }
+    }
+
+    /** Appends the character of the escape sequence at the current position, unknown sequences are kept as is. */
+    private void readEscaped(StringBuilder builder) {
+        if (++pos == limit) throw new RuntimeException("Unterminated string!");
+
+        char escaped = buffer[pos++];
+        switch (escaped) {
+            case '"', '\\', '/' -> builder.append(escaped);
+            case 'b' -> builder.append('\b');
+            case 'f' -> builder.append('\f');
+            case 'n' -> builder.append('\n');
+            case 'r' -> builder.append('\r');
+            case 't' -> builder.append('\t');
+            case 'u' -> {
+                if (limit - pos < 4) throw new RuntimeException("Malformed unicode escape!");
+
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(buffer[pos++], 16);
+                    if (digit == -1) throw new RuntimeException("Malformed unicode escape!");
+                    code = code << 4 | digit;
+                }
+
+                builder.append((char) code);
+            }
+            default -> builder.append('\\').append(escaped);
+        }
+    }
+
+    private void skipString() {
+        while (true) {
+            if (pos + 1 >= limit && !fill(2) && pos >= limit) throw new RuntimeException("Unterminated string!");
+
+            char next = buffer[pos];
+            if (next == '"') {
+                pos++;
+                return;
+            }
+
+            pos += next == '\\' ? 2 : 1;
+        }
+    }
+
+    /**
+     * Moves the remaining characters to the beginning of the buffer and reads more from the reader.
+     * @return whether at least the given number of characters are available after the current position.
+     */
+    private boolean fill(int minimum) {
+        if (reader == null) return false;
+
+        offset += pos;
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+
+        if (minimum > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(minimum, buffer.length * 2));
+
+        try {
+            while (limit < minimum) {
+                int read = reader.read(buffer, limit, buffer.length - limit);
+                if (read == -1) return false;
+                limit += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return true;
+    }
+
+    private static boolean delimiter(char next) {
+        return next == ',' || next == '}' || next == ']' || next == ':' || next == ' ' || next == '\n' || next == '\r' || next == '\t';
+    }
+
+    // endregion
+
+    /** Decodes UTF-8 from a file that is mapped into memory window by window. */
+    private static class MappedReader extends Reader {
+
+        /** Size of the mapped windows, files can be larger than a single buffer can address. */
+        private static final long window = 1 << 26;
+
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        private final FileChannel channel;
+        private final long size;
+
+        private ByteBuffer bytes;
+        /** Position in the file right after the mapped window. */
+        private long mapped;
+        private boolean flushed;
+
+        private MappedReader(FileChannel channel) {
+            this.channel = channel;
+            try {
+                this.size = channel.size();
+                map(channel.position());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            if (flushed) return -1;
+
+            CharBuffer chars = CharBuffer.wrap(buffer, offset, length);
+            while (chars.position() == offset) {
+                boolean last = mapped == size;
+                decoder.decode(bytes, chars, last);
+
+                if (chars.position() > offset) break;
+                if (last) {
+                    decoder.flush(chars);
+                    flushed = true;
+                    break;
+                }
+
+                map(mapped - bytes.remaining()); // the rest of the window may be an incomplete character
+            }
+
+            int read = chars.position() - offset;
+            return read == 0 ? -1 : read;
+        }
+
+        private void map(long start) throws IOException {
+            long length = Math.min(window, Math.max(size - start, 0));
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            mapped = start + length;
+        }
+
+        @Override
+        public void close() {} // the channel belongs to the caller
+    }
+
+    /** All types of json tokens. */
+    public enum Token {
+        beginJson, endJson, beginArray, endArray, name, string, number, bool, nil, end
+    }
+}
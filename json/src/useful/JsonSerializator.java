@@ -3,26 +3,70 @@ package useful;
 import useful.Json.JsonArray;
 import useful.Json.JsonSerializable;
 import useful.Json.JsonSerializer;
+import useful.Json.JsonStyle;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /** 
  * Converts objects to {@link Json} using registered {@link JsonSerializer}s or reflection.
+ * Safe to use from multiple threads, though serializers and tags are expected to be registered before that.
  * 
  * @author xzxADIxzx
  */
 @SuppressWarnings("unchecked")
 public class JsonSerializator {
 
-    private static final ArrayList<Class<?>> unserializable = new ArrayList<>() {{ // ._.
-        add(Object.class); add(Byte.class); add(Short.class); add(Integer.class); add(Long.class);
-        add(Character.class); add(Boolean.class); add(Float.class); add(Double.class);
-    }};
+    private static final Set<Class<?>> unserializable = Set.of(
+            Object.class, Byte.class, Short.class, Integer.class, Long.class,
+            Character.class, Boolean.class, Float.class, Double.class);
 
-    private final ArrayList<ClassSerializerPair<?>> pairs = new ArrayList<>();
-    private final ArrayList<StringClassPair> tags = new ArrayList<>();
+    /** Types of fields that numbers are converted to, see {@link #toNumber(Class, Object)}. */
+    private static final Set<Class<?>> numbers = Set.of(
+            Byte.class, Short.class, Integer.class, Long.class,
+            Character.class, Float.class, Double.class);
+
+    /** Marks classes that have no {@link JsonSerializer} in {@link #resolved}. */
+    private static final ClassSerializerPair<?> none = new ClassSerializerPair<>(Object.class, null);
+
+    /** Maximum number of classes in {@link #classes}, the cache is cleared when it is full. */
+    public static int maxClasses = 1024;
+
+    private final CopyOnWriteArrayList<ClassSerializerPair<?>> pairs = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<String, Class<?>> tags = new ConcurrentHashMap<>();
+
+    /** Serializers found for concrete classes, replaced with an empty one when a new serializer is added. Does not keep the classes from being unloaded. */
+    private volatile ClassValue<ClassSerializerPair<?>> resolved = resolved();
+
+    /** Classes found by names or tags, names that could not be resolved are not cached. */
+    private final ConcurrentHashMap<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+    /** Handles of {@link #toArray(Class, Object)} and {@link #toNumber(Class, Object)} used to convert values of array and number fields. */
+    private static final MethodHandle toArray, toNumber;
+
+    static {
+        try {
+            toArray = MethodHandles.lookup().findStatic(JsonSerializator.class, "toArray", MethodType.methodType(Object.class, Class.class, Object.class));
+            toNumber = MethodHandles.lookup().findStatic(JsonSerializator.class, "toNumber", MethodType.methodType(Object.class, Class.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Fields and constructors of classes serialized through reflection, resolved once per class. */
+    private final ClassValue<ClassDescriptor> descriptors = new ClassValue<>() {
+        @Override
+        protected ClassDescriptor computeValue(Class<?> type) {
+            return new ClassDescriptor(type);
+        }
+    };
 
     // region serialization
 
@@ -37,9 +81,10 @@ public class JsonSerializator {
         if (pair != null) return pair.serializer.write(object);
         else {
             Json json = new Json(referenced);
+            ClassDescriptor descriptor = descriptors.get(referenced);
             try {
-                for (Field field : referenced.getFields())
-                    if (serializable(field.getModifiers())) json.put(field.getName(), field.get(object));
+                for (int i = 0; i < descriptor.names.length; i++)
+                    json.put(descriptor.names[i], descriptor.getters[i].invokeExact(object));
             } catch (Throwable ignored) {} // how is this even possible if we iterate over public fields?!
             return json;
         }
@@ -57,9 +102,11 @@ public class JsonSerializator {
         else return field.toString();
     }
 
-    /** Replaces " with \" and adds " on the sides. */
+    /** Escapes quotes, backslashes and control characters and adds " on the sides. */
     public String serializeString(String field) {
-        return "\"" + field.replaceAll("\"", "\\\\\"") + "\"";
+        StringBuilder builder = new StringBuilder(field.length() + 2);
+        new JsonWriter(builder, JsonStyle.compact).writeString(field);
+        return builder.toString();
     }
 
     // endregion
@@ -73,57 +120,82 @@ public class JsonSerializator {
         String className = json.getAs("class");
         if (className == null) return json;
 
-        Class<Object> referenced;
-        try {
-            referenced = (Class<Object>) Class.forName(className);
-        } catch (ClassNotFoundException ignored) {
-            referenced = (Class<Object>) getByTag(className);
-        }
-
+        Class<Object> referenced = (Class<Object>) getByName(className);
         if (referenced == null) return json;
 
+        ClassDescriptor descriptor = descriptors.get(referenced);
+        if (descriptor.constructor == null) return json;
+
         Object object;
         try {
-            object = referenced.getDeclaredConstructor().newInstance();
+            object = descriptor.constructor.invokeExact();
         } catch (Throwable ignored) {
             return json;
         }
 
-        ClassSerializerPair<Object> pair = getSerializer(referenced);
+        return readInto(object, json);
+    }
+
+    /**
+     * Recreates the existing object from its {@link Json} representation instead of creating a new one, the class tag is ignored.
+     * Nested objects that are left as json, see {@link Json#read(JsonReader, Json)}, are read into the objects that the fields already hold.
+     */
+    public <T> T readInto(T object, Json json) {
+        Class<T> referenced = (Class<T>) object.getClass();
+
+        ClassSerializerPair<T> pair = getSerializer(referenced);
         if (pair != null) pair.serializer.read(object, json);
-        else try {
-            for (Field field : referenced.getFields())
-                if (serializable(field.getModifiers())) field.set(object, json.get(field.getName()));
-        } catch (Throwable ignored) {}
+        else {
+            ClassDescriptor descriptor = descriptors.get(referenced);
+            for (int i = 0; i < descriptor.names.length; i++) {
+                try {
+                    Object value = json.get(descriptor.names[i]);
+                    if (value instanceof Json) value = merge(descriptor.getters[i].invokeExact((Object) object), value);
+                    else if (value != null && value.getClass().isArray()) { // arrays of the json are overwritten by the next read into it
+                        Class<?> type = descriptor.types[i].isArray() ? descriptor.types[i] : value.getClass();
+                        value = new JsonArray(value).into(type, descriptor.getters[i].invokeExact((Object) object));
+                    }
+
+                    descriptor.setters[i].invokeExact((Object) object, value);
+                } catch (Throwable ignored) {} // the value does not fit the field, the rest of the fields are still read
+            }
+        }
 
         return object;
     }
 
-    /** Parses a field into a specific type. */
-    public Object deserializeField(String field) {
-        if (field.equals("null")) return null;
-
-        if (field.equals("true")) return true;
-        if (field.equals("false")) return false;
-
-        if (field.startsWith("\"") && field.endsWith("\"")) return deserializeString(field);
-        if (field.startsWith("{") && field.endsWith("}")) return Json.read(field);
-        if (field.startsWith("[") && field.endsWith("]")) return JsonArray.read(field);
+    /**
+     * Used by serializers to read nested objects that are left as json.
+     * @return the current value of a field after the json is read into it or an object deserialized from the json if the field holds nothing.
+     * Jsons that are not deserialized and arrays are copied, as they may be reused by the next read, see {@link Json#read(JsonReader, Json)}.
+     */
+    public Object merge(Object current, Object value) {
+        if (value != null && value.getClass().isArray()) return new JsonArray(value).into(value.getClass(), current);
+        if (!(value instanceof Json json)) return value;
+        if (current == null || current instanceof Json || current instanceof String || current.getClass().isArray() || !serializable(current)) {
+            Object result = deserializeObject(json);
+            return result == json ? json.copy() : result;
+        }
 
-        try {
-            return Integer.parseInt(field);
-        } catch (Throwable ignored) {}
+        return readInto(current, json);
+    }
 
-        try {
-            return Float.parseFloat(field);
-        } catch (Throwable ignored) {}
+    /** Parses a field into a specific type. */
+    public Object deserializeField(String field) {
+        JsonReader reader = new JsonReader(field);
+        Object result = Json.readField(reader);
 
-        throw new RuntimeException("Unknown field type!");
+        reader.finish();
+        return result;
     }
 
-    /** Removes " on the sides and replaces \" with. " */
+    /** Removes " on the sides and unescapes all escape sequences. */
     public String deserializeString(String field) {
-        return field.substring(1, field.length() - 1).replaceAll("\\\\\"", "\"");
+        JsonReader reader = new JsonReader(field);
+        String result = reader.nextString();
+
+        reader.finish();
+        return result;
     }
 
     // endregion
@@ -139,25 +211,155 @@ public class JsonSerializator {
     public <T> void addSerializer(Class<T> referenced, JsonSerializer<T> serializer) {
         if (unserializable.contains(referenced)) return; // pls, don't
         pairs.add(new ClassSerializerPair<>(referenced, serializer));
+        resolved = resolved(); // the new serializer may be more suitable for some classes
     }
 
     public <T> ClassSerializerPair<T> getSerializer(Class<T> referenced) {
-        for (ClassSerializerPair<?> pair : pairs) // class cast exception not possible
-            if (pair.referenced.isAssignableFrom(referenced)) return (ClassSerializerPair<T>) pair;
-        return null; // no serializer found so we will serialize via reflection
+        ClassSerializerPair<?> pair = resolved.get(referenced);
+        return pair == none ? null : (ClassSerializerPair<T>) pair;
+    }
+
+    /** @return an empty cache of serializers found for concrete classes. */
+    private ClassValue<ClassSerializerPair<?>> resolved() {
+        return new ClassValue<>() {
+            @Override
+            protected ClassSerializerPair<?> computeValue(Class<?> type) {
+                return findSerializer(type);
+            }
+        };
     }
 
     public void addTag(String tag, Class<?> referenced) {
-        tags.add(new StringClassPair(tag, referenced));
+        tags.putIfAbsent(tag, referenced);
     }
 
     public Class<?> getByTag(String tag) {
-        for (StringClassPair pair : tags)
-            if (pair.tag.equals(tag)) return pair.referenced;
-        return null; // no class by tag found
+        return tags.get(tag); // null if no class by tag found
     }
 
-    public record ClassSerializerPair<T>(Class<T> referenced, JsonSerializer<T> serializer) {}
+    /** @return a class by its name or tag, or null if there is no such class. */
+    public Class<?> getByName(String className) {
+        Class<?> referenced = classes.get(className);
+        if (referenced != null) return referenced;
 
-    public record StringClassPair(String tag, Class<?> referenced) {}
+        referenced = findClass(className);
+        if (referenced == null) return null; // misses are not cached, otherwise unknown names would fill the cache
+
+        if (classes.size() >= maxClasses) classes.clear();
+        classes.put(className, referenced);
+        return referenced;
+    }
+
+    /** Serializers added for the class itself go first, then the one generated for it and then the ones added for its supertypes. */
+    private ClassSerializerPair<?> findSerializer(Class<?> referenced) {
+        for (ClassSerializerPair<?> pair : pairs)
+            if (pair.referenced == referenced) return pair;
+
+        if (referenced.isAnnotationPresent(JsonGenerated.class)) {
+            ClassSerializerPair<?> pair = findGenerated(referenced);
+            if (pair != null) return pair;
+        }
+
+        for (ClassSerializerPair<?> pair : pairs)
+            if (pair.referenced.isAssignableFrom(referenced)) return pair;
+        return none; // no serializer found so we will serialize via reflection
+    }
+
+    /** @return a pair with the serializer generated by {@link JsonProcessor} or null if the processor did not run for the class. */
+    private <T> ClassSerializerPair<T> findGenerated(Class<T> referenced) {
+        try {
+            Class<?> generated = Class.forName(generatedName(referenced.getName()), true, referenced.getClassLoader());
+            return new ClassSerializerPair<>(referenced, (JsonSerializer<T>) generated.getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException ignored) {
+            return null; // fall back to reflection
+        }
+    }
+
+    /** @return the name of the serializer generated by {@link JsonProcessor} for the class with the given binary name. */
+    static String generatedName(String className) {
+        int dot = className.lastIndexOf('.') + 1;
+        return className.substring(0, dot) + className.substring(dot).replace('$', '_') + "_JsonSerializer";
+    }
+
+    /** @return the value converted to an array of the given type if it is an array of another type. */
+    private static Object toArray(Class<?> type, Object value) {
+        if (value == null || type.isInstance(value) || !value.getClass().isArray()) return value;
+        return new JsonArray(value).as(type);
+    }
+
+    /** @return the value converted to the given number or character type, numbers are read as int, long or double whatever the type of the field is. */
+    private static Object toNumber(Class<?> type, Object value) {
+        if (value instanceof Number number) {
+            if (type == Integer.class) return number.intValue();
+            if (type == Long.class) return number.longValue();
+            if (type == Float.class) return number.floatValue();
+            if (type == Double.class) return number.doubleValue();
+            if (type == Short.class) return number.shortValue();
+            if (type == Byte.class) return number.byteValue();
+        }
+
+        if (type == Character.class && value instanceof String string && !string.isEmpty()) return string.charAt(0);
+        return value;
+    }
+
+    private Class<?> findClass(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException ignored) {
+            return getByTag(className);
+        }
+    }
+
+    /** Serializable fields of a class with their accessors and its no-arg constructor, if there is an accessible one. */
+    private class ClassDescriptor {
+
+        private final String[] names;
+        private final Class<?>[] types;
+        private final MethodHandle[] getters, setters;
+        private final MethodHandle constructor;
+
+        private ClassDescriptor(Class<?> referenced) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+            ArrayList<String> names = new ArrayList<>();
+            ArrayList<Class<?>> types = new ArrayList<>();
+            ArrayList<MethodHandle> getters = new ArrayList<>(), setters = new ArrayList<>();
+
+            for (Field field : referenced.getFields()) {
+                if (!serializable(field.getModifiers())) continue;
+                try {
+                    MethodHandle getter = lookup.unreflectGetter(field), setter = lookup.unreflectSetter(field);
+
+                    names.add(field.getName());
+                    types.add(field.getType());
+                    getters.add(getter.asType(MethodType.methodType(Object.class, Object.class)));
+                    setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+                    // arrays are read as Object[], so they are converted to the type of the field
+                    if (field.getType().isArray()) setter = MethodHandles.filterArguments(setter, 1, MethodHandles.insertArguments(toArray, 0, field.getType()));
+
+                    // numbers are converted to the type of the field, including narrowing of doubles to floats
+                    Class<?> wrapper = MethodType.methodType(field.getType()).wrap().returnType();
+                    if (numbers.contains(wrapper)) setter = MethodHandles.filterArguments(setter, 1, MethodHandles.insertArguments(toNumber, 0, wrapper));
+                    setters.add(setter);
+                } catch (IllegalAccessException ignored) {} // public fields of a class that is not accessible
+            }
+
+            this.names = names.toArray(new String[0]);
+            this.types = types.toArray(new Class<?>[0]);
+            this.getters = getters.toArray(new MethodHandle[0]);
+            this.setters = setters.toArray(new MethodHandle[0]);
+
+            MethodHandle constructor;
+            try {
+                constructor = lookup.unreflectConstructor(referenced.getDeclaredConstructor()).asType(MethodType.methodType(Object.class));
+            } catch (Throwable ignored) {
+                constructor = null; // no accessible no-arg constructor, such objects are left as json
+            }
+
+            this.constructor = constructor;
+        }
+    }
+
+    public record ClassSerializerPair<T>(Class<T> referenced, JsonSerializer<T> serializer) {}
 }
\ No newline at end of file
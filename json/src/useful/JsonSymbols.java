@@ -0,0 +1,63 @@
+package useful;
+
+import java.util.Arrays;
+
+/**
+ * Table of canonical key strings used by {@link JsonReader}, so that the same key read many times is a single string in memory.
+ * Keys are looked up by the hash of their characters in the source, without creating a string if the key is already in the table.
+ * The table has a fixed size and newer keys replace the older ones on collision, so it never grows no matter how many keys are read.
+ *
+ * @author xzxADIxzx
+ */
+public class JsonSymbols {
+
+    /** Table shared by all of the readers or null if each reader uses its own one, which lives as long as the reader. */
+    public static JsonSymbols shared;
+
+    /** Longer keys are rarely repeated, so they are not interned. */
+    static final int maxLength = 64;
+
+    private final String[] symbols;
+    private final int mask;
+
+    public JsonSymbols() {
+        this(1024);
+    }
+
+    /** Creates a table with the given number of slots rounded up to a power of two. */
+    public JsonSymbols(int capacity) {
+        this.symbols = new String[Math.max(Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1, 2)];
+        this.mask = symbols.length - 1;
+    }
+
+    /**
+     * Returns the canonical string for the given characters, the hash must be equal to the {@link String#hashCode()} of them.
+     * The table may be used by several threads at once, in the worst case some keys are just not deduplicated.
+     */
+    public String intern(char[] source, int start, int end, int hash) {
+        int index = (hash ^ hash >>> 16) & mask;
+        String symbol = symbols[index];
+
+        if (symbol != null && symbol.hashCode() == hash && symbol.length() == end - start) {
+            int i = 0;
+            while (i < symbol.length() && symbol.charAt(i) == source[start + i]) i++;
+
+            if (i == symbol.length()) return symbol;
+        }
+
+        return symbols[index] = new String(source, start, end - start);
+    }
+
+    /** @return the canonical string equal to the given one. */
+    public String intern(String key) {
+        int index = (key.hashCode() ^ key.hashCode() >>> 16) & mask;
+        String symbol = symbols[index];
+
+        if (key.equals(symbol)) return symbol;
+        return symbols[index] = key;
+    }
+
+    public void clear() {
+        Arrays.fill(symbols, null);
+    }
+}
@@ -0,0 +1,201 @@
+package useful;
+
+import useful.Json.JsonArray;
+import useful.Json.JsonSection;
+import useful.Json.JsonStyle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.nio.CharBuffer;
+
+import static useful.Json.serializator;
+
+/**
+ * Streams {@link Json} into an {@link Appendable} without building intermediate strings.
+ *
+ * @author xzxADIxzx
+ */
+public class JsonWriter {
+
+    /** Replacements for characters that must be escaped, indexed by character. */
+    private static final String[] escapes = new String[93];
+
+    static {
+        for (int i = 0; i < 32; i++)
+            escapes[i] = "\\u%04x".formatted(i);
+
+        escapes['"'] = "\\\"";
+        escapes['\\'] = "\\\\";
+        escapes['\b'] = "\\b";
+        escapes['\f'] = "\\f";
+        escapes['\n'] = "\\n";
+        escapes['\r'] = "\\r";
+        escapes['\t'] = "\\t";
+    }
+
+    private final Appendable output;
+    private final JsonStyle style;
+
+    /** Number of indents before keys and values, kept per writer so that documents can be written from any thread. */
+    private int indent;
+
+    public JsonWriter(Appendable output, JsonStyle style) {
+        this.output = output;
+        this.style = style;
+    }
+
+    /** Writes any value that can be serialized by {@link JsonSerializator}. */
+    public void write(Object object) {
+        // object can initially be json
+        if (object instanceof Json json) {
+            writeJson(json);
+            return;
+        }
+
+        if (object instanceof String string) {
+            writeString(string);
+            return;
+        }
+
+        // chars are written as strings to be readable back
+        if (object instanceof Character character) {
+            writeString(character.toString());
+            return;
+        }
+
+        object = serializator.serializeField(object);
+
+        if (object instanceof Json json) writeJson(json);
+        else if (object instanceof JsonArray array) writeArray(array);
+        else append(object.toString());
+    }
+
+    public void writeJson(Json json) {
+        if (json.values.size() == 0) {
+            append("{}");
+            return;
+        }
+
+        indent++;
+        append('{');
+
+        boolean[] first = {true};
+        json.values.eachRaw((key, value) -> {
+            if (!first[0]) append(',');
+            first[0] = false;
+
+            append(style.line);
+            append(style.indent(indent));
+            writeString(key);
+            append(style.colon);
+
+            if (value instanceof JsonSection section) writeSection(section);
+            else write(value);
+        });
+
+        indent--;
+        close('}');
+    }
+
+    public void writeArray(JsonArray array) {
+        Object values = array.array;
+
+        int length = Array.getLength(values);
+        if (length == 0) {
+            append("[]");
+            return;
+        }
+
+        append('[');
+
+        for (int i = 0; i < length; i++) {
+            if (i > 0) append(',');
+
+            append(style.line);
+            append(style.indent(indent));
+            append(style.prefix);
+
+            // elements of primitive arrays are written without boxing
+            if (values instanceof Object[] objects) write(objects[i]);
+            else if (values instanceof int[] ints) number(ints[i]);
+            else if (values instanceof long[] longs) number(longs[i]);
+            else if (values instanceof float[] floats) number(floats[i]);
+            else if (values instanceof double[] doubles) number(doubles[i]);
+            else if (values instanceof byte[] bytes) number(bytes[i]);
+            else if (values instanceof boolean[] booleans) append(booleans[i] ? "true" : "false");
+            else write(Array.get(values, i));
+        }
+
+        close(']');
+    }
+
+    /** Writes a section that was never read exactly as it was in the source. */
+    private void writeSection(JsonSection section) {
+        if (output instanceof StringBuilder builder) builder.append(section.source, section.start, section.end - section.start);
+        else append(CharBuffer.wrap(section.source), section.start, section.end);
+    }
+
+    /** Writes a string in quotes, escaping only the characters that json does not allow inside strings. */
+    public void writeString(String string) {
+        append('"');
+
+        int start = 0, length = string.length();
+        for (int i = 0; i < length; i++) {
+            char next = string.charAt(i);
+            if (next >= escapes.length || escapes[next] == null) continue;
+
+            if (start < i) append(string, start, i); // copy the unchanged run at once
+            append(escapes[next]);
+            start = i + 1;
+        }
+
+        if (start < length) append(string, start, length);
+        append('"');
+    }
+
+    private void close(char bracket) {
+        append(style.line);
+        append(style.indent(indent));
+        append(bracket);
+    }
+
+    private void number(long value) {
+        if (output instanceof StringBuilder builder) builder.append(value);
+        else append(Long.toString(value));
+    }
+
+    private void number(float value) {
+        if (output instanceof StringBuilder builder) builder.append(value);
+        else append(Float.toString(value));
+    }
+
+    private void number(double value) {
+        if (output instanceof StringBuilder builder) builder.append(value);
+        else append(Double.toString(value));
+    }
+
+    private void append(CharSequence text) {
+        try {
+            output.append(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void append(CharSequence text, int start, int end) {
+        try {
+            output.append(text, start, end);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void append(char character) {
+        try {
+            output.append(character);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
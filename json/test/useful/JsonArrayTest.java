@@ -0,0 +1,49 @@
+package useful;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Arrays are read as Object[] whatever their elements are, and the typed getters convert them.
+ *
+ * @author xzxADIxzx
+ */
+public class JsonArrayTest {
+
+    @Test
+    public void readArrays() {
+        Json json = Json.read("{\"ints\":[1,2],\"empty\":[],\"mixed\":[1,3000000000],\"fractions\":[0.1,0.123456789],\"booleans\":[true,false]}");
+
+        assertArrayEquals(new Object[] {1, 2}, (Object[]) json.get("ints"), "ints");
+        assertArrayEquals(new Object[0], (Object[]) json.get("empty"), "empty");
+        assertArrayEquals(new Object[] {1, 3000000000L}, (Object[]) json.get("mixed"), "mixed");
+        assertArrayEquals(new Object[] {0.1, 0.123456789}, (Object[]) json.get("fractions"), "fractions");
+        assertArrayEquals(new Object[] {true, false}, (Object[]) json.get("booleans"), "booleans");
+    }
+
+    @Test
+    public void getTypedArrays() {
+        Json json = Json.read("{\"ints\":[1,2],\"mixed\":[1,3000000000],\"fractions\":[0.1,0.5],\"booleans\":[true,false]}");
+
+        assertTrue(Arrays.equals(new int[] {1, 2}, json.getIntArray("ints")), "ints");
+        assertTrue(Arrays.equals(new long[] {1, 3000000000L}, json.getLongArray("mixed")), "longs");
+        assertTrue(Arrays.equals(new double[] {0.1, 0.5}, json.getDoubleArray("fractions")), "doubles");
+        assertTrue(Arrays.equals(new float[] {0.1f, 0.5f}, json.getFloatArray("fractions")), "floats");
+        assertTrue(Arrays.equals(new boolean[] {true, false}, json.getBooleanArray("booleans")), "booleans");
+        assertArrayEquals(new Integer[] {1, 2}, json.getArray("ints", Integer.class), "boxed");
+    }
+
+    @Test
+    public void keepPutArrays() {
+        int[] ints = {1, 2, 3};
+        Json json = new Json().put("ints", ints);
+
+        assertSame(ints, json.getIntArray("ints"), "arrays that are put are returned as is");
+        assertArrayEquals(new Object[] {1, 2, 3}, (Object[]) Json.read(json.write(Json.JsonStyle.compact)).get("ints"), "and read back as Object[]");
+    }
+}
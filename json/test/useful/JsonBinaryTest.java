@@ -0,0 +1,76 @@
+package useful;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Values read from the binary form must be the same, including their types, as the ones read from the text form.
+ *
+ * @author xzxADIxzx
+ */
+public class JsonBinaryTest {
+
+    @Test
+    public void readAsText() {
+        Json json = new Json()
+                .put("int", 42).put("short", (short) 7).put("byte", (byte) -3)
+                .put("smallLong", 5L).put("long", 3000000000L)
+                .put("float", 0.1f).put("double", 0.1).put("integral", 3.0f).put("tiny", 1.0E-45f).put("huge", 1.7976931348623157E308)
+                .put("true", true).put("false", false).put("null", null)
+                .put("string", "line\nquote\" \u0436 \uD83D\uDE00").put("char", 'c')
+                .put("ints", new int[] {1, -2, 3}).put("longs", new long[] {1, 3000000000L}).put("floats", new float[] {0.1f, 0.2f})
+                .put("doubles", new double[] {0.1, 0.2}).put("bytes", new byte[] {1, 2}).put("booleans", new boolean[] {true, false})
+                .put("mixed", new Object[] {1, "a", null, 0.5, new Json().put("x", 1)}).put("empty", new Object[0])
+                .put("nested", new int[][] {{1, 2}, {}}).put("json", new Json().put("a", new Json().put("b", 0.3f)))
+                .put("object", new Point());
+
+        for (Json.JsonStyle style : Json.JsonStyle.values())
+            assertTree(Json.read(json.write(style)), JsonBinary.read(JsonBinary.write(json)), style.name());
+    }
+
+    @Test
+    public void readRandomNumbersAsText() {
+        Random random = new Random(42);
+        Json json = new Json();
+
+        for (int i = 0; i < 1000; i++) {
+            json.put("f" + i, Float.intBitsToFloat(random.nextInt()));
+            json.put("d" + i, Double.longBitsToDouble(random.nextLong()));
+            json.put("l" + i, random.nextLong() >> random.nextInt(64));
+        }
+
+        assertTree(Json.read(json.write(Json.JsonStyle.compact)), JsonBinary.read(JsonBinary.write(json)), "numbers");
+    }
+
+    /** Compares the trees value by value, numbers must be of the same type as well. */
+    static void assertTree(Object expected, Object actual, String path) {
+        if (expected instanceof Json json) {
+            assertEquals(Json.class, actual == null ? null : actual.getClass(), path);
+            Json other = (Json) actual;
+
+            assertEquals(json.values.size(), other.values.size(), path + " size");
+            json.each((key, value) -> assertTree(value, other.get(key), path + "." + key));
+        } else if (expected instanceof Object[] array) {
+            assertEquals(Object[].class, actual == null ? null : actual.getClass(), path);
+            Object[] other = (Object[]) actual;
+
+            assertEquals(array.length, other.length, path + " length");
+            for (int i = 0; i < array.length; i++) assertTree(array[i], other[i], path + "[" + i + "]");
+        } else if (expected instanceof Point) {
+            assertEquals(Json.write(expected, Json.JsonStyle.compact), Json.write(actual, Json.JsonStyle.compact), path);
+        } else {
+            assertEquals(expected == null ? null : expected.getClass(), actual == null ? null : actual.getClass(), path + " type");
+            assertEquals(expected, actual, path);
+        }
+    }
+
+    public static class Point {
+        public int x = 1;
+        public float y = 2.5f;
+
+        public Point() {}
+    }
+}
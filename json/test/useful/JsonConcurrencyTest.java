@@ -0,0 +1,115 @@
+package useful;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Writes and reads many documents on many threads at once, the output of each one must be the same as when it is processed alone.
+ *
+ * @author xzxADIxzx
+ */
+public class JsonConcurrencyTest {
+
+    static final int documents = 2000, threads = 16;
+
+    @Test
+    public void writeInParallel() throws Exception {
+        List<Json> jsons = new ArrayList<>();
+        List<Save> saves = new ArrayList<>();
+
+        Random random = new Random(42);
+        for (int i = 0; i < documents; i++) {
+            jsons.add(generate(random, 4));
+            saves.add(Save.generate(random));
+        }
+
+        for (Json.JsonStyle style : Json.JsonStyle.values()) {
+            List<String> expected = new ArrayList<>(), expectedSaves = new ArrayList<>();
+            for (int i = 0; i < documents; i++) {
+                expected.add(jsons.get(i).write(style));
+                expectedSaves.add(Json.write(saves.get(i), style));
+            }
+
+            List<String> actual = run(i -> jsons.get(i).write(style)), actualSaves = run(i -> Json.write(saves.get(i), style));
+            for (int i = 0; i < documents; i++) {
+                assertEquals(expected.get(i), actual.get(i), "Json " + i + " written with " + style + " style");
+                assertEquals(expectedSaves.get(i), actualSaves.get(i), "Object " + i + " written with " + style + " style");
+            }
+
+            // the documents read on many threads must be written back the same
+            List<String> read = run(i -> Json.read(expected.get(i)).write(style)), readSaves = run(i -> Json.write(Json.readAs(expectedSaves.get(i)), style));
+            for (int i = 0; i < documents; i++) {
+                assertEquals(expected.get(i), read.get(i), "Json " + i + " read with " + style + " style");
+                assertEquals(expectedSaves.get(i), readSaves.get(i), "Object " + i + " read with " + style + " style");
+            }
+        }
+    }
+
+    /** @return results of the task for each document, computed by a pool of threads. */
+    static List<String> run(Task task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<String>> tasks = new ArrayList<>();
+            for (int i = 0; i < documents; i++) {
+                int index = i;
+                tasks.add(() -> task.get(index));
+            }
+
+            List<String> result = new ArrayList<>();
+            for (Future<String> future : executor.invokeAll(tasks)) result.add(future.get());
+
+            return result;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** @return a json with values of each kind, nested up to the given depth. */
+    static Json generate(Random random, int depth) {
+        Json json = new Json();
+        json.put("id", random.nextInt());
+        json.put("time", random.nextLong());
+        json.put("ratio", random.nextDouble());
+        json.put("name", "document \"" + random.nextInt(1000) + "\"\n");
+        json.put("active", random.nextBoolean());
+        json.put("scores", new int[] {random.nextInt(), random.nextInt(), random.nextInt()});
+        json.put("tags", new Object[] {"a", random.nextInt(10), null});
+
+        for (int i = 0; i < depth && random.nextBoolean(); i++)
+            json.put("child" + i, generate(random, depth - 1));
+
+        return json;
+    }
+
+    interface Task {
+        String get(int index) throws Exception;
+    }
+
+    public static class Save {
+        public String map;
+        public int wave;
+        public float[] position;
+        public Save next;
+
+        public Save() {}
+
+        static Save generate(Random random) {
+            Save save = new Save();
+            save.map = "map" + random.nextInt(10);
+            save.wave = random.nextInt(100);
+            save.position = new float[] {random.nextFloat(), random.nextFloat()};
+
+            if (random.nextBoolean()) save.next = generate(random);
+            return save;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package useful;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Numbers must keep their value whatever the type of the field they are read into.
+ *
+ * @author xzxADIxzx
+ */
+public class JsonNumbersTest {
+
+    @Test
+    public void readNumbers() {
+        Json json = Json.read("{\"i\":1,\"l\":3000000000,\"d\":0.1,\"e\":1e3,\"n\":-0.123456789}");
+
+        assertEquals(1, json.get("i"));
+        assertEquals(3000000000L, json.get("l"));
+        assertEquals(0.1, json.get("d"));
+        assertEquals(1000.0, json.get("e"));
+        assertEquals(-0.123456789, json.get("n"));
+    }
+
+    @Test
+    public void readFields() {
+        Fields fields = new Fields();
+        Json.serializator.readInto(fields, Json.read("{\"d\":0.1,\"f\":0.123456789,\"l\":5,\"i\":\"not a number\",\"boxed\":2,\"c\":\"x\",\"after\":7}"));
+
+        assertEquals(0.1, fields.d);
+        assertEquals(0.123456789f, fields.f);
+        assertEquals(5L, fields.l);
+        assertEquals(3, fields.i, "fields with values of other types are left as is");
+        assertEquals(2.0, fields.boxed);
+        assertEquals('x', fields.c);
+        assertEquals(7, fields.after, "fields after the one that could not be read are read as well");
+    }
+
+    public static class Fields {
+        public double d;
+        public float f;
+        public long l;
+        public int i = 3;
+        public Double boxed;
+        public char c;
+        public int after;
+
+        public Fields() {}
+    }
+}